@@ -0,0 +1,359 @@
+package pizzastore.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic data set in the format of the files in data/, at a
+ * configurable scale, for loading with the bulk loader and for evaluating
+ * indexes and queries at production volume:
+ *
+ *    java -cp benchmarks.jar pizzastore.bench.DataGenerator [--name value ...]
+ *
+ *    --out dir              where the CSV files are written (data/generated)
+ *    --data dir             the data/ directory the menu and store addresses are taken from (data)
+ *    --users n              number of Users (50000)
+ *    --stores n             number of Stores (1000)
+ *    --orders n             number of FoodOrders (2000000)
+ *    --max-items n          most distinct items in one order (5)
+ *    --store-skew s         Zipf exponent of the order count per store, 0 for uniform (1.0)
+ *    --customer-skew s      Zipf exponent of the order count per customer, 0 for uniform (1.2)
+ *    --peak-factor f        how many times more orders are placed per hour at lunch and dinner (4)
+ *    --days n               the orders span the n days before --end (365)
+ *    --end timestamp        time of the newest order (2024-12-31T23:59:59)
+ *    --open-minutes n       orders placed in the last n minutes are not complete yet (60)
+ *    --seed n               seed of the random generator, the same seed gives the same files (1)
+ *
+ * The files respect create_tables.sql: logins, storeIDs and orderIDs are
+ * unique, every order references an existing user and store, an order has
+ * no item twice and its totalPrice is the sum of price times quantity of
+ * its items, whose rows carry the orderTimestamp of their order. orderIDs
+ * increase with orderTimestamp, as they do when the orders are placed
+ * through the sequence.
+ *
+ * The password of every user is derived from its login (see password), so
+ * a benchmark can log in as any generated user. users.csv holds them in
+ * plain text, like data/users.csv; PizzaStore --hash-passwords turns it
+ * into the bcrypt hashes the Users table stores.
+ */
+public class DataGenerator {
+
+   // hours of the day with a raised order rate
+   static final int[] PEAK_HOURS = { 11, 12, 13, 17, 18, 19, 20 };
+
+   // the states of order_status an order can be in before it is complete
+   static final String[] OPEN_STATUSES = { "placed", "preparing", "out for delivery" };
+
+   // share of users who are managers and drivers, the rest are customers
+   static final double MANAGER_SHARE = 0.01;
+   static final double DRIVER_SHARE = 0.05;
+
+   static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+   private final Map<String, String> options;
+   private final SplittableRandom random;
+
+   // itemName and price of every item on the menu
+   private final List<String> itemNames = new ArrayList<>();
+   private final List<BigDecimal> itemPrices = new ArrayList<>();
+
+   // streets, and city/state pairs, of the stores in data/store.csv
+   private final List<String> streets = new ArrayList<>();
+   private final List<String[]> cities = new ArrayList<>();
+
+   DataGenerator(Map<String, String> options) {
+      this.options = options;
+      this.random = new SplittableRandom(Long.parseLong(option("seed", "1")));
+   }
+
+   public static void main(String[] args) throws IOException {
+      Map<String, String> options = new LinkedHashMap<>();
+      for (int i = 0; i < args.length; i += 2) {
+         if (!args[i].startsWith("--") || i + 1 >= args.length) {
+            System.err.println("Usage: DataGenerator [--name value ...], see the class comment for the options");
+            System.exit(1);
+         }
+         options.put(args[i].substring(2), args[i + 1]);
+      }
+      new DataGenerator(options).generate();
+   }
+
+   private String option(String name, String defaultValue) {
+      return options.getOrDefault(name, defaultValue);
+   }
+
+   private int intOption(String name, int defaultValue) {
+      return Integer.parseInt(option(name, Integer.toString(defaultValue)));
+   }
+
+   private double doubleOption(String name, double defaultValue) {
+      return Double.parseDouble(option(name, Double.toString(defaultValue)));
+   }
+
+   void generate() throws IOException {
+      Path data = Paths.get(option("data", "data"));
+      Path out = Paths.get(option("out", "data/generated"));
+      Files.createDirectories(out);
+      readMenu(data.resolve("items.csv"));
+      readAddresses(data.resolve("store.csv"));
+
+      long start = System.nanoTime();
+      Files.copy(data.resolve("items.csv"), out.resolve("items.csv"), StandardCopyOption.REPLACE_EXISTING);
+      int stores = intOption("stores", 1000);
+      writeStores(out.resolve("store.csv"), stores);
+      String[] customers = writeUsers(out.resolve("users.csv"), intOption("users", 50000));
+      long[] counts = writeOrders(out.resolve("foodorder.csv"), out.resolve("itemsinorder.csv"), customers, stores);
+      System.out.printf("Wrote %d users, %d stores, %d orders and %d order items to %s in %.1f s\n",
+         intOption("users", 50000), stores, counts[0], counts[1], out, (System.nanoTime() - start) / 1e9);
+   }
+
+   private void readMenu(Path file) throws IOException {
+      List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+      for (String line : lines.subList(1, lines.size())) {
+         List<String> fields = parseCsvLine(line);
+         if (fields.size() < 4) {
+            continue;
+         }
+         itemNames.add(fields.get(0).trim());
+         itemPrices.add(new BigDecimal(fields.get(3).trim()));
+      }
+   }
+
+   private void readAddresses(Path file) throws IOException {
+      List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+      for (String line : lines.subList(1, lines.size())) {
+         List<String> fields = parseCsvLine(line);
+         // drop the house number of the address, the generator adds its own
+         streets.add(fields.get(1).replaceFirst("^\\d+\\s+", ""));
+         cities.add(new String[] { fields.get(2), fields.get(3) });
+      }
+   }
+
+   /**
+    * Splits a line the way COPY ... CSV does: quotes may start anywhere in a
+    * field and protect the commas up to the closing quote.
+    */
+   static List<String> parseCsvLine(String line) {
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      for (int i = 0; i < line.length(); ++i) {
+         char c = line.charAt(i);
+         if (c == '"') {
+            if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+               field.append('"');
+               ++i;
+            } else {
+               quoted = !quoted;
+            }
+         } else if (c == ',' && !quoted) {
+            fields.add(field.toString());
+            field.setLength(0);
+         } else {
+            field.append(c);
+         }
+      }
+      fields.add(field.toString());
+      return fields;
+   }
+
+   private void writeStores(Path file, int stores) throws IOException {
+      try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+         out.write("storeID,address,city,state,isOpen,reviewScore\n");
+         for (int storeID = 1; storeID <= stores; ++storeID) {
+            String[] city = cities.get(random.nextInt(cities.size()));
+            String address = (1 + random.nextInt(99999)) + " " + streets.get(random.nextInt(streets.size()));
+            out.write(storeID + "," + csv(address) + "," + csv(city[0]) + "," + csv(city[1]) + ","
+               + (random.nextDouble() < 0.9 ? "yes" : "no") + "," + (1 + random.nextInt(5)) + "\n");
+         }
+      }
+   }
+
+   /**
+    * Writes the users and returns the logins of the customers, the users
+    * orders are placed by.
+    */
+   private String[] writeUsers(Path file, int users) throws IOException {
+      List<String> customers = new ArrayList<>();
+      try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+         out.write("login,password,role,favoriteItems,phoneNum\n");
+         for (int i = 0; i < users; ++i) {
+            String login = "user" + i;
+            double r = random.nextDouble();
+            String role = r < MANAGER_SHARE ? "manager" : r < MANAGER_SHARE + DRIVER_SHARE ? "driver" : "customer";
+            if (role.equals("customer")) {
+               customers.add(login);
+            }
+            String phone = String.format("%03d-%03d-%04d", 200 + random.nextInt(800), random.nextInt(1000), random.nextInt(10000));
+            out.write(login + "," + password(login) + "," + role + ","
+               + csv(itemNames.get(random.nextInt(itemNames.size()))) + "," + phone + "\n");
+         }
+      }
+      if (customers.isEmpty()) {
+         throw new IllegalArgumentException("No customers to place orders, raise --users");
+      }
+      return customers.toArray(new String[0]);
+   }
+
+   /**
+    * Writes the orders and their items.
+    *
+    * @return the number of orders and of order items written
+    */
+   private long[] writeOrders(Path orderFile, Path itemFile, String[] customers, int stores) throws IOException {
+      int orders = intOption("orders", 2000000);
+      int maxItems = Math.min(intOption("max-items", 5), itemNames.size());
+      LocalDateTime end = LocalDateTime.parse(option("end", "2024-12-31T23:59:59"));
+      long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+      long openSince = endSecond - intOption("open-minutes", 60) * 60L;
+
+      long[] timestamps = orderTimestamps(orders, endSecond, intOption("days", 365), doubleOption("peak-factor", 4));
+      Zipf storeRanks = new Zipf(stores, doubleOption("store-skew", 1.0));
+      Zipf customerRanks = new Zipf(customers.length, doubleOption("customer-skew", 1.2));
+      // which store and which customer is the busiest is random, not the first in the file
+      int[] storeByRank = permutation(stores);
+      int[] customerByRank = permutation(customers.length);
+
+      long itemRows = 0;
+      int[] picked = new int[maxItems];
+      try (Writer orderOut = new BufferedWriter(Files.newBufferedWriter(orderFile, StandardCharsets.UTF_8), 1 << 16);
+           Writer itemOut = new BufferedWriter(Files.newBufferedWriter(itemFile, StandardCharsets.UTF_8), 1 << 16)) {
+         orderOut.write("orderID,login,storeID,totalPrice,\"orderTimestamp\",orderStatus\n");
+         itemOut.write("orderID,\"orderTimestamp\",itemName,quantity\n");
+         for (int i = 0; i < orders; ++i) {
+            int orderID = i + 1;
+            String login = customers[customerByRank[customerRanks.sample(random)]];
+            int storeID = storeByRank[storeRanks.sample(random)] + 1;
+            String timestamp = "\"" + LocalDateTime.ofEpochSecond(timestamps[i], 0, ZoneOffset.UTC).format(TIMESTAMP) + "\"";
+
+            // fewer items are more likely: 1 item in about half of the orders
+            int count = 1;
+            while (count < maxItems && random.nextDouble() < 0.5) {
+               ++count;
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < count; ++j) {
+               picked[j] = distinctItem(picked, j);
+               int quantity = 1 + random.nextInt(3);
+               total = total.add(itemPrices.get(picked[j]).multiply(BigDecimal.valueOf(quantity)));
+               itemOut.write(orderID + "," + timestamp + "," + csv(itemNames.get(picked[j])) + "," + quantity + "\n");
+            }
+            itemRows += count;
+
+            String status = timestamps[i] >= openSince ? OPEN_STATUSES[random.nextInt(OPEN_STATUSES.length)] : "complete";
+            orderOut.write(orderID + "," + login + "," + storeID + "," + total.toPlainString() + ","
+               + timestamp + "," + status + "\n");
+         }
+      }
+      return new long[] { orders, itemRows };
+   }
+
+   // an index into the menu that is not among the first count picked
+   private int distinctItem(int[] picked, int count) {
+      while (true) {
+         int item = random.nextInt(itemNames.size());
+         boolean taken = false;
+         for (int k = 0; k < count; ++k) {
+            taken |= picked[k] == item;
+         }
+         if (!taken) {
+            return item;
+         }
+      }
+   }
+
+   /**
+    * Draws the order times, in seconds, over the days before endSecond,
+    * with peakFactor times more orders per hour in the PEAK_HOURS, and
+    * returns them in increasing order.
+    */
+   private long[] orderTimestamps(int orders, long endSecond, int days, double peakFactor) {
+      double[] hourWeights = new double[24];
+      Arrays.fill(hourWeights, 1.0);
+      for (int hour : PEAK_HOURS) {
+         hourWeights[hour] = peakFactor;
+      }
+      double[] cumulative = new double[24];
+      double sum = 0;
+      for (int hour = 0; hour < 24; ++hour) {
+         sum += hourWeights[hour];
+         cumulative[hour] = sum;
+      }
+
+      long firstDay = endSecond / 86400 - days + 1;
+      long[] timestamps = new long[orders];
+      for (int i = 0; i < orders; ++i) {
+         int hour = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+         hour = hour < 0 ? -hour - 1 : hour;
+         long second = (firstDay + random.nextInt(days)) * 86400 + hour * 3600L + random.nextInt(3600);
+         timestamps[i] = Math.min(second, endSecond);
+      }
+      Arrays.sort(timestamps);
+      return timestamps;
+   }
+
+   private int[] permutation(int n) {
+      int[] p = new int[n];
+      for (int i = 0; i < n; ++i) {
+         p[i] = i;
+      }
+      for (int i = n - 1; i > 0; --i) {
+         int j = random.nextInt(i + 1);
+         int t = p[i];
+         p[i] = p[j];
+         p[j] = t;
+      }
+      return p;
+   }
+
+   // the password of a generated user
+   static String password(String login) {
+      return login + "-pw";
+   }
+
+   // a value as a CSV field, quoted when it contains a separator or a quote
+   static String csv(String value) {
+      if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+         return value;
+      }
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+   }
+
+   /**
+    * Ranks 0..n-1 drawn with probability proportional to 1 / (rank + 1)^s,
+    * so a few ranks get most of the draws. s = 0 draws uniformly.
+    */
+   static class Zipf {
+      private final double[] cumulative;
+
+      Zipf(int n, double s) {
+         cumulative = new double[n];
+         double sum = 0;
+         for (int rank = 0; rank < n; ++rank) {
+            sum += 1.0 / Math.pow(rank + 1, s);
+            cumulative[rank] = sum;
+         }
+      }
+
+      int sample(SplittableRandom random) {
+         int rank = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+         return rank < 0 ? -rank - 1 : rank;
+      }
+   }
+}
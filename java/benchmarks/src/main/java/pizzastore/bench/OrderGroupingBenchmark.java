@@ -0,0 +1,56 @@
+package pizzastore.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PizzaStore.groupOrderRows, which folds the one-row-per-item result of the
+ * order queries of viewOrderInfo into one record per order. Runs on rows
+ * shaped like the driver returns them, without a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderGroupingBenchmark {
+
+   @Param({ "10", "1000" })
+   int orders;
+
+   @Param({ "1", "5" })
+   int itemsPerOrder;
+
+   private List<List<String>> rows;
+
+   @Setup
+   public void createRows() {
+      String status = "complete";
+      rows = new ArrayList<>();
+      for (int o = 0; o < orders; ++o) {
+         String orderID = Integer.toString(10000 + o);
+         for (int i = 0; i < itemsPerOrder; ++i) {
+            rows.add(Arrays.asList(orderID, "2024-01-01 12:00:00", "29.97", status, "Item " + i, "2"));
+         }
+      }
+   }
+
+   @Benchmark
+   public List<List<String>> groupOrderRows() throws Throwable {
+      return Store.groupOrderRows(rows);
+   }
+}
@@ -0,0 +1,65 @@
+package pizzastore.bench;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The bcrypt work factors PizzaStore.Passwords can hash with: the time of
+ * a hash (creating a user, changing a password, rehash on login) and of a
+ * check (a login), and of a login that hits the cache of verified logins.
+ * A core does 1 / check logins a second at a work factor, which bounds
+ * the work factor for a peak login rate; -Dpizzastore.password.cost sets it.
+ * No database is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordBenchmark {
+
+   // a user of data/users.csv and its password there, which create_db.sh hashes when it loads the file
+   private static final String LOGIN = "mfarrears0";
+   private static final String PASSWORD = "dshimoni0";
+
+   @Param({ "8", "10", "12" })
+   int cost;
+
+   private String stored;
+
+   @Setup
+   public void hashPassword() throws Throwable {
+      stored = BCrypt.with(BCrypt.Version.VERSION_2A).hashToString(cost, PASSWORD.toCharArray());
+      // the first login pays for bcrypt and fills the cache
+      if (!Store.verifyPassword(LOGIN, PASSWORD, stored)) {
+         throw new IllegalStateException("the password does not verify");
+      }
+   }
+
+   @Benchmark
+   public String hash() {
+      return BCrypt.with(BCrypt.Version.VERSION_2A).hashToString(cost, PASSWORD.toCharArray());
+   }
+
+   @Benchmark
+   public boolean check() {
+      return BCrypt.verifyer().verify(PASSWORD.toCharArray(), stored).verified;
+   }
+
+   @Benchmark
+   public boolean cachedLogin() throws Throwable {
+      return Store.verifyPassword(LOGIN, PASSWORD, stored);
+   }
+}
@@ -0,0 +1,109 @@
+package pizzastore.bench;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PizzaStore.insertOrder end to end: orderID allocation and the single
+ * statement inserting the priced order and its items, as placeOrder runs it
+ * once the user has picked a store and the items. For comparison, the two
+ * ways orders were inserted before, through the same session:
+ *
+ *  - itemByItem: the order row and then one INSERT per item, each
+ *    committed on its own, as placeOrder did at first;
+ *  - inTransaction: the order row and a batch of the items in one
+ *    transaction, one round trip for each and one for the COMMIT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaceOrderBenchmark {
+
+   // units ordered of each item
+   static final int QUANTITY = 2;
+
+   @Param({ "1", "5", "10" })
+   int items;
+
+   private StoreDatabase db;
+   private Store store;
+   private int storeID;
+   private Map<String, Integer> order;
+   private String[] itemNames;
+
+   @Setup
+   public void open() throws Throwable {
+      db = StoreDatabase.open();
+      store = db.newStore();
+      store.setCurrentUser(StoreDatabase.BENCH_LOGIN);
+      storeID = Integer.parseInt(store.executeQueryAndReturnResult("SELECT MIN(storeID) FROM Store").get(0).get(0));
+      order = new LinkedHashMap<>();
+      for (List<String> item : store.executeQueryAndReturnResult("SELECT itemName FROM Items ORDER BY itemName LIMIT ?", items)) {
+         order.put(item.get(0), QUANTITY);
+      }
+      itemNames = order.keySet().toArray(new String[0]);
+   }
+
+   @TearDown
+   public void close() throws Exception {
+      store.close();
+      db.close();
+   }
+
+   @Benchmark
+   public Object placeOrder() throws Throwable {
+      return store.insertOrder(storeID, order);
+   }
+
+   @Benchmark
+   public int itemByItem() throws Throwable {
+      int orderID = store.allocateOrderID();
+      // the statements do not share a now(), so the items get the orderTimestamp from here
+      Timestamp placed = new Timestamp(System.currentTimeMillis());
+      store.executeUpdate(
+         "INSERT INTO FoodOrder (orderID, login, storeID, totalPrice, orderTimestamp, orderStatus) " +
+         "SELECT ?, ?, ?, SUM(price * " + QUANTITY + "), ?, 'placed' FROM Items WHERE itemName = ANY (?)",
+         orderID, StoreDatabase.BENCH_LOGIN, storeID, placed, itemNames);
+      for (String itemName : itemNames) {
+         store.executeUpdate("INSERT INTO ItemsInOrder (orderID, orderTimestamp, itemName, quantity) VALUES (?, ?, ?, ?)",
+            orderID, placed, itemName, QUANTITY);
+      }
+      return orderID;
+   }
+
+   @Benchmark
+   public int inTransaction() throws Throwable {
+      int orderID = store.allocateOrderID();
+      store.beginTransaction();
+      store.executeUpdate(
+         "INSERT INTO FoodOrder (orderID, login, storeID, totalPrice, orderTimestamp, orderStatus) " +
+         "SELECT ?, ?, ?, SUM(price * " + QUANTITY + "), now(), 'placed' FROM Items WHERE itemName = ANY (?)",
+         orderID, StoreDatabase.BENCH_LOGIN, storeID, itemNames);
+      List<Object[]> rows = new ArrayList<>();
+      for (String itemName : itemNames) {
+         rows.add(new Object[] { orderID, itemName, QUANTITY });
+      }
+      store.executeBatch("INSERT INTO ItemsInOrder (orderID, orderTimestamp, itemName, quantity) VALUES (?, now(), ?, ?)", rows);
+      store.commitTransaction();
+      return orderID;
+   }
+}
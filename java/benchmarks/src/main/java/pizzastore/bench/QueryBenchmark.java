@@ -0,0 +1,62 @@
+package pizzastore.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PizzaStore.executeQueryAndReturnResult: one round trip plus materializing
+ * every row as a list of strings, for result sets of different sizes taken
+ * from the order history of StoreDatabase.BENCH_LOGIN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+   @Param({ "1", "100", "10000" })
+   int rows;
+
+   private StoreDatabase db;
+   private Store store;
+
+   @Setup
+   public void open() throws Throwable {
+      db = StoreDatabase.open();
+      store = db.newStore();
+   }
+
+   @TearDown
+   public void close() throws Exception {
+      store.close();
+      db.close();
+   }
+
+   @Benchmark
+   public List<List<String>> orderHistory() throws Throwable {
+      return store.executeQueryAndReturnResult(
+         "SELECT orderID, login, storeID, totalPrice, orderTimestamp, orderStatus FROM FoodOrder WHERE login = ? ORDER BY orderTimestamp, orderID LIMIT ?",
+         StoreDatabase.BENCH_LOGIN, rows);
+   }
+
+   @Benchmark
+   public List<List<String>> orderHistoryWithItems() throws Throwable {
+      return store.executeQueryAndReturnResult(
+         "SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM (SELECT orderID, orderTimestamp, totalPrice, orderStatus FROM FoodOrder WHERE login = ? ORDER BY orderTimestamp, orderID LIMIT ?) F JOIN ItemsInOrder I ON F.orderID = I.orderID AND F.orderTimestamp = I.orderTimestamp ORDER BY F.orderTimestamp, F.orderID",
+         StoreDatabase.BENCH_LOGIN, rows);
+   }
+}
@@ -0,0 +1,117 @@
+package pizzastore.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A PizzaStore session, called through method handles. PizzaStore lives in
+ * the unnamed package, which cannot be imported from a named one, and JMH
+ * does not accept benchmarks in the unnamed package. The handles are looked
+ * up once, so a call costs about the same as a direct one.
+ */
+final class Store implements AutoCloseable {
+
+   private static final Class<?> PIZZA_STORE = load("PizzaStore");
+   private static final MethodHandle NEW = handle(null, String.class, String.class, String.class, String.class);
+   private static final MethodHandle EXECUTE_QUERY_AND_RETURN_RESULT = handle("executeQueryAndReturnResult", String.class, Object[].class);
+   private static final MethodHandle EXECUTE_UPDATE = handle("executeUpdate", String.class, Object[].class);
+   private static final MethodHandle EXECUTE_BATCH = handle("executeBatch", String.class, List.class);
+   private static final MethodHandle BEGIN_TRANSACTION = handle("beginTransaction");
+   private static final MethodHandle COMMIT_TRANSACTION = handle("commitTransaction");
+   private static final MethodHandle ALLOCATE_ORDER_ID = handle("allocateOrderID");
+   private static final MethodHandle INSERT_ORDER = handle("insertOrder", int.class, Map.class);
+   private static final MethodHandle SET_CURRENT_USER = handle("setCurrentUser", String.class);
+   private static final MethodHandle CLEANUP = handle("cleanup");
+   private static final MethodHandle GROUP_ORDER_ROWS = handle("groupOrderRows", List.class);
+   private static final MethodHandle VERIFY_PASSWORD =
+      handle(load("PizzaStore$Passwords"), "verify", String.class, String.class, String.class);
+
+   private final Object esql;
+
+   /**
+    * Opens a session on the database, as the console program does.
+    */
+   Store(String dbname, String dbport, String user) throws Throwable {
+      this.esql = NEW.invoke(dbname, dbport, user, "");
+   }
+
+   @SuppressWarnings("unchecked")
+   List<List<String>> executeQueryAndReturnResult(String query, Object... params) throws Throwable {
+      return (List<List<String>>) EXECUTE_QUERY_AND_RETURN_RESULT.invoke(esql, query, params);
+   }
+
+   int executeUpdate(String sql, Object... params) throws Throwable {
+      return (int) EXECUTE_UPDATE.invoke(esql, sql, params);
+   }
+
+   int[] executeBatch(String sql, List<Object[]> paramSets) throws Throwable {
+      return (int[]) EXECUTE_BATCH.invoke(esql, sql, paramSets);
+   }
+
+   void beginTransaction() throws Throwable {
+      BEGIN_TRANSACTION.invoke(esql);
+   }
+
+   void commitTransaction() throws Throwable {
+      COMMIT_TRANSACTION.invoke(esql);
+   }
+
+   int allocateOrderID() throws Throwable {
+      return (int) ALLOCATE_ORDER_ID.invoke(esql);
+   }
+
+   // returns the PlacedOrder
+   Object insertOrder(int storeID, Map<String, Integer> items) throws Throwable {
+      return INSERT_ORDER.invoke(esql, storeID, items);
+   }
+
+   void setCurrentUser(String login) throws Throwable {
+      SET_CURRENT_USER.invoke(esql, login);
+   }
+
+   @SuppressWarnings("unchecked")
+   static List<List<String>> groupOrderRows(List<List<String>> rows) throws Throwable {
+      return (List<List<String>>) GROUP_ORDER_ROWS.invoke(rows);
+   }
+
+   // PizzaStore.Passwords.verify: checks a password against a stored hash, through the cache of verified logins
+   static boolean verifyPassword(String login, String password, String stored) throws Throwable {
+      return (boolean) VERIFY_PASSWORD.invoke(login, password, stored);
+   }
+
+   @Override
+   public void close() throws Exception {
+      try {
+         CLEANUP.invoke(esql);
+      }catch (Throwable e) {
+         throw new Exception(e);
+      }
+   }
+
+   private static Class<?> load(String name) {
+      try {
+         return Class.forName(name);
+      }catch (ClassNotFoundException e) {
+         throw new IllegalStateException("PizzaStore is not on the classpath", e);
+      }
+   }
+
+   // a handle on a public method of PizzaStore, or on its constructor when name is null
+   private static MethodHandle handle(String name, Class<?>... parameterTypes) {
+      return handle(PIZZA_STORE, name, parameterTypes);
+   }
+
+   // a handle on a public method of a public class, or on its constructor when name is null
+   private static MethodHandle handle(Class<?> type, String name, Class<?>... parameterTypes) {
+      try {
+         if (name == null) {
+            return MethodHandles.publicLookup().unreflectConstructor(type.getConstructor(parameterTypes));
+         }
+         return MethodHandles.publicLookup().unreflect(type.getMethod(name, parameterTypes)).asFixedArity();
+      }catch (ReflectiveOperationException e) {
+         throw new IllegalStateException(type.getName().replace('$', '.') + "." + name + " not found", e);
+      }
+   }
+}
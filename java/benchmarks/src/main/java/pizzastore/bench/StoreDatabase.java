@@ -0,0 +1,176 @@
+package pizzastore.bench;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.postgresql.PGConnection;
+
+/**
+ * The database the benchmarks run against. By default an embedded PostgreSQL
+ * server is started for the benchmark run. To use a local server instead,
+ * pass -Dpizzastore.bench.port=<port> (and optionally
+ * -Dpizzastore.bench.db=<dbname>, -Dpizzastore.bench.user=<user>). That
+ * database is emptied and reloaded, so it must be a scratch database.
+ *
+ * The schema is created from sql/src, the data files of data/ are loaded and
+ * BENCH_LOGIN gets a history of synthetic orders. The repository is found
+ * by walking up from the working directory, or set with -Dpizzastore.root.
+ */
+final class StoreDatabase implements AutoCloseable {
+
+   // the user whose order history the benchmarks read and extend
+   static final String BENCH_LOGIN = "bench";
+
+   // orders in the history of BENCH_LOGIN, each with ITEMS_PER_ORDER items
+   static final int BENCH_ORDERS = 10000;
+   static final int ITEMS_PER_ORDER = 3;
+
+   // the synthetic orders are numbered from here, after the loaded ones
+   static final int FIRST_BENCH_ORDER_ID = 1000000;
+
+   private final EmbeddedPostgres embedded;
+   final String dbname;
+   final String dbport;
+   final String user;
+
+   private StoreDatabase(EmbeddedPostgres embedded, String dbname, String dbport, String user) {
+      this.embedded = embedded;
+      this.dbname = dbname;
+      this.dbport = dbport;
+      this.user = user;
+   }
+
+   /**
+    * Starts or connects to the database and loads it.
+    */
+   static StoreDatabase open() throws IOException, SQLException {
+      String port = System.getProperty("pizzastore.bench.port");
+      StoreDatabase db;
+      if (port == null) {
+         EmbeddedPostgres embedded = EmbeddedPostgres.start();
+         db = new StoreDatabase(embedded, "postgres", Integer.toString(embedded.getPort()), "postgres");
+      } else {
+         db = new StoreDatabase(null,
+            System.getProperty("pizzastore.bench.db", System.getProperty("user.name") + "_project_phase_3_DB"),
+            port,
+            System.getProperty("pizzastore.bench.user", System.getProperty("user.name")));
+      }
+      try {
+         db.load(findRoot());
+      }catch (IOException | SQLException | RuntimeException e) {
+         db.close();
+         throw e;
+      }
+      return db;
+   }
+
+   /**
+    * Opens a PizzaStore session on the database.
+    */
+   Store newStore() throws Throwable {
+      return new Store(dbname, dbport, user);
+   }
+
+   Connection connect() throws SQLException {
+      return DriverManager.getConnection("jdbc:postgresql://localhost:" + dbport + "/" + dbname, user, "");
+   }
+
+   private void load(Path root) throws IOException, SQLException {
+      try (Connection connection = connect(); Statement stmt = connection.createStatement()) {
+         stmt.execute(read(root.resolve("sql/src/create_tables.sql")));
+         stmt.execute(read(root.resolve("sql/src/create_indexes.sql")));
+         stmt.execute(read(root.resolve("sql/src/create_rollups.sql")));
+
+         String[][] files = {
+            // the same files and columns as PizzaStore.LOAD_FILES
+            { "Users", "users.csv", "login, password, role, favoriteItems, phoneNum" },
+            { "Items", "items.csv", "itemName, ingredients, typeOfItem, price, description" },
+            { "Store", "store.csv", "storeID, address, city, state, isOpen, reviewScore" },
+            { "FoodOrder", "foodorder.csv", "orderID, login, storeID, totalPrice, orderTimestamp, orderStatus" },
+            { "ItemsInOrder", "itemsinorder.csv", "orderID, orderTimestamp, itemName, quantity" },
+         };
+
+         // the month partitions of the loaded orders and of the synthetic orders below
+         try (PreparedStatement partition = connection.prepareStatement("SELECT create_order_partition(?::timestamp)")) {
+            List<String> orders = Files.readAllLines(root.resolve("data/foodorder.csv"), StandardCharsets.UTF_8);
+            for (String order : orders.subList(1, orders.size())) {
+               partition.setString(1, order.split(",")[4].replace("\"", ""));
+               partition.execute();
+            }
+         }
+         try (PreparedStatement partition = connection.prepareStatement(
+                 "SELECT create_order_partition(now()::timestamp - ? * interval '1 minute')")) {
+            partition.setInt(1, BENCH_ORDERS);
+            partition.execute();
+         }
+
+         // users.csv is copied with its passwords unhashed, which bcrypt at ~10 hashes a second would take
+         // minutes per run; PizzaStore accepts such a row and hashes it at the user's first login
+         PGConnection pg = connection.unwrap(PGConnection.class);
+         for (String[] file : files) {
+            try (Reader reader = Files.newBufferedReader(root.resolve("data").resolve(file[1]), StandardCharsets.UTF_8)) {
+               pg.getCopyAPI().copyIn("COPY " + file[0] + " (" + file[2] + ") FROM STDIN WITH DELIMITER ',' CSV HEADER", reader);
+            }
+         }
+
+         try (PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO Users (login, password, role, favoriteItems, phoneNum) VALUES (?, 'bench', 'customer', NULL, '000-000-0000')")) {
+            insert.setString(1, BENCH_LOGIN);
+            insert.executeUpdate();
+         }
+         try (PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO FoodOrder (orderID, login, storeID, totalPrice, orderTimestamp, orderStatus) " +
+                 "SELECT ? + g, ?, (SELECT MIN(storeID) FROM Store), 9.99, now() - g * interval '1 minute', 'complete' " +
+                 "FROM generate_series(0, ? - 1) g")) {
+            insert.setInt(1, FIRST_BENCH_ORDER_ID);
+            insert.setString(2, BENCH_LOGIN);
+            insert.setInt(3, BENCH_ORDERS);
+            insert.executeUpdate();
+         }
+         try (PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO ItemsInOrder (orderID, orderTimestamp, itemName, quantity) " +
+                 "SELECT F.orderID, F.orderTimestamp, I.itemName, 1 FROM FoodOrder F " +
+                 "CROSS JOIN (SELECT itemName FROM Items ORDER BY itemName LIMIT ?) I WHERE F.login = ?")) {
+            insert.setInt(1, ITEMS_PER_ORDER);
+            insert.setString(2, BENCH_LOGIN);
+            insert.executeUpdate();
+         }
+         stmt.execute("SELECT setval('FoodOrder_orderID_seq', (SELECT MAX(orderID) + 1 FROM FoodOrder), false)");
+         stmt.execute("ANALYZE");
+      }
+   }
+
+   private static String read(Path file) throws IOException {
+      return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+   }
+
+   private static Path findRoot() {
+      String root = System.getProperty("pizzastore.root");
+      if (root != null) {
+         return Paths.get(root);
+      }
+      for (Path dir = Paths.get("").toAbsolutePath(); dir != null; dir = dir.getParent()) {
+         if (Files.exists(dir.resolve("sql/src/create_tables.sql"))) {
+            return dir;
+         }
+      }
+      throw new IllegalStateException("Repository not found, set -Dpizzastore.root");
+   }
+
+   @Override
+   public void close() throws IOException {
+      if (embedded != null) {
+         embedded.close();
+      }
+   }
+}
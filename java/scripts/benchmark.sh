@@ -0,0 +1,11 @@
+#!/bin/bash
+DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+
+# build the application and the JMH benchmarks (needs JDK 21, see compile.sh)
+mvn -q -f $DIR/../pom.xml package
+
+# run the benchmarks, or only those matching the given patterns (e.g. OrderGrouping)
+# The database benchmarks start an embedded PostgreSQL server. To run them against a
+# scratch database of a local server instead, which they empty and reload, add
+# -Dpizzastore.bench.port=$PGPORT -Dpizzastore.bench.db=<scratch db>
+java -Dpizzastore.root=$DIR/../.. -jar $DIR/../benchmarks/target/benchmarks.jar "$@"
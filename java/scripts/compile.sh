@@ -2,10 +2,14 @@
 DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
 
 
-# compile the java program
-javac -d $DIR/../classes $DIR/../src/PizzaStore.java
+# compile the java program and fetch the JDBC driver into app/target/lib
+# (needs JDK 21 for both mvn and java: the server runs its sessions on virtual threads)
+mvn -q -f $DIR/../pom.xml package -pl app -am
 
 #run the java program
 #Use your database name, port number and login
-java -cp $DIR/../classes:$DIR/../lib/pg73jdbc3.jar PizzaStore $USER"_project_phase_3_DB" $PGPORT $USER
-
+#Driver settings can be changed with -Dpizzastore.jdbc.prepareThreshold=..., -Dpizzastore.jdbc.reWriteBatchedInserts=...
+#and -Dpizzastore.jdbc.binaryTransfer=...
+#Latency metrics per query and menu action are served on http://localhost:<port>/metrics with -Dpizzastore.metrics.port=<port>
+#Statements slower than -Dpizzastore.slowQuery.millis (500) are logged with their plan to slow-queries.<n>.log
+java -cp "$DIR/../app/target/classes:$DIR/../app/target/lib/*" PizzaStore $USER"_project_phase_3_DB" $PGPORT $USER
@@ -0,0 +1,10 @@
+#!/bin/bash
+DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+
+# build the generator, which ships with the benchmarks (needs JDK 21, see compile.sh)
+mvn -q -f $DIR/../pom.xml package
+
+# write a synthetic data set to data/generated, e.g. generate_data.sh --orders 5000000 --store-skew 1.3
+# (see DataGenerator for all options)
+java -cp $DIR/../benchmarks/target/benchmarks.jar pizzastore.bench.DataGenerator \
+   --data $DIR/../../data --out $DIR/../../data/generated "$@"
@@ -1,1709 +1,4421 @@
-/*
- * Template JAVA User Interface
- * =============================
- *
- * Database Management Systems
- * Department of Computer Science &amp; Engineering
- * University of California - Riverside
- *
- * Target DBMS: 'Postgres'
- *
- */
-
-
-import java.sql.DriverManager;
-import java.sql.Connection;
-import java.sql.Statement;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
-import java.sql.SQLException;
-import java.io.File;
-import java.io.FileReader;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.List;
-import java.util.ArrayList;
-import java.lang.Math;
-
-/**
- * This class defines a simple embedded SQL utility class that is designed to
- * work with PostgreSQL JDBC drivers.
- *
- */
-public class PizzaStore {
-
-   // reference to physical database connection.
-   private Connection _connection = null;
-
-   // Field to store the currently logged in user.
-   private String currentUser;
-
-   // handling the keyboard inputs through a BufferedReader
-   // This variable can be global for convenience.
-   static BufferedReader in = new BufferedReader(
-                                new InputStreamReader(System.in));
-
-   /**
-    * Creates a new instance of PizzaStore
-    *
-    * @param hostname the MySQL or PostgreSQL server hostname
-    * @param database the name of the database
-    * @param username the user name used to login to the database
-    * @param password the user login password
-    * @throws java.sql.SQLException when failed to make a connection.
-    */
-   public PizzaStore(String dbname, String dbport, String user, String passwd) throws SQLException {
-
-      System.out.print("Connecting to database...");
-      try{
-         // constructs the connection URL
-         String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
-         System.out.println ("Connection URL: " + url + "\n");
-
-         // obtain a physical connection
-         this._connection = DriverManager.getConnection(url, user, passwd);
-         System.out.println("Done");
-      }catch (Exception e){
-         System.err.println("Error - Unable to Connect to Database: " + e.getMessage() );
-         System.out.println("Make sure you started postgres on this machine");
-         System.exit(-1);
-      }//end catch
-   }//end PizzaStore
-
-   /**
-    * Method to execute an update SQL statement.  Update SQL instructions
-    * includes CREATE, INSERT, UPDATE, DELETE, and DROP.
-    *
-    * @param sql the input SQL string
-    * @throws java.sql.SQLException when update failed
-    */
-   public void executeUpdate (String sql) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the update instruction
-      stmt.executeUpdate (sql);
-
-      // close the instruction
-      stmt.close ();
-   }//end executeUpdate
-
-   /**
-    * Method to execute an input query SQL instruction (i.e. SELECT).  This
-    * method issues the query to the DBMS and outputs the results to
-    * standard out.
-    *
-    * @param query the input query string
-    * @return the number of rows returned
-    * @throws java.sql.SQLException when failed to execute the query
-    */
-   public int executeQueryAndPrintResult (String query) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the query instruction
-      ResultSet rs = stmt.executeQuery (query);
-
-      /*
-       ** obtains the metadata object for the returned result set.  The metadata
-       ** contains row and column info.
-       */
-      ResultSetMetaData rsmd = rs.getMetaData ();
-      int numCol = rsmd.getColumnCount ();
-      int rowCount = 0;
-
-      // iterates through the result set and output them to standard out.
-      boolean outputHeader = true;
-      while (rs.next()){
-		 if(outputHeader){
-			for(int i = 1; i <= numCol; i++){
-			System.out.print(rsmd.getColumnName(i) + "\t");
-			}
-			System.out.println();
-			outputHeader = false;
-		 }
-         for (int i=1; i<=numCol; ++i)
-            System.out.print (rs.getString (i) + "\t");
-         System.out.println ();
-         ++rowCount;
-      }//end while
-      stmt.close();
-      return rowCount;
-   }//end executeQuery
-
-   /**
-    * Method to execute an input query SQL instruction (i.e. SELECT).  This
-    * method issues the query to the DBMS and returns the results as
-    * a list of records. Each record in turn is a list of attribute values
-    *
-    * @param query the input query string
-    * @return the query result as a list of records
-    * @throws java.sql.SQLException when failed to execute the query
-    */
-   public List<List<String>> executeQueryAndReturnResult (String query) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the query instruction
-      ResultSet rs = stmt.executeQuery (query);
-
-      /*
-       ** obtains the metadata object for the returned result set.  The metadata
-       ** contains row and column info.
-       */
-      ResultSetMetaData rsmd = rs.getMetaData ();
-      int numCol = rsmd.getColumnCount ();
-      int rowCount = 0;
-
-      // iterates through the result set and saves the data returned by the query.
-      boolean outputHeader = false;
-      List<List<String>> result  = new ArrayList<List<String>>();
-      while (rs.next()){
-        List<String> record = new ArrayList<String>();
-		for (int i=1; i<=numCol; ++i)
-			record.add(rs.getString (i));
-        result.add(record);
-      }//end while
-      stmt.close ();
-      return result;
-   }//end executeQueryAndReturnResult
-
-   /**
-    * Method to execute an input query SQL instruction (i.e. SELECT).  This
-    * method issues the query to the DBMS and returns the number of results
-    *
-    * @param query the input query string
-    * @return the number of rows returned
-    * @throws java.sql.SQLException when failed to execute the query
-    */
-   public int executeQuery (String query) throws SQLException {
-       // creates a statement object
-       Statement stmt = this._connection.createStatement ();
-
-       // issues the query instruction
-       ResultSet rs = stmt.executeQuery (query);
-
-       int rowCount = 0;
-
-       // iterates through the result set and count nuber of results.
-       while (rs.next()){
-          rowCount++;
-       }//end while
-       stmt.close ();
-       return rowCount;
-   }
-
-   /**
-    * Method to fetch the last value from sequence. This
-    * method issues the query to the DBMS and returns the current
-    * value of sequence used for autogenerated keys
-    *
-    * @param sequence name of the DB sequence
-    * @return current value of a sequence
-    * @throws java.sql.SQLException when failed to execute the query
-    */
-   public int getCurrSeqVal(String sequence) throws SQLException {
-	Statement stmt = this._connection.createStatement ();
-
-	ResultSet rs = stmt.executeQuery (String.format("Select currval('%s')", sequence));
-	if (rs.next())
-		return rs.getInt(1);
-	return -1;
-   }
-
-   /**
-    * Method to close the physical connection if it is open.
-    */
-   public void cleanup(){
-      try{
-         if (this._connection != null){
-            this._connection.close ();
-         }//end if
-      }catch (SQLException e){
-         // ignored.
-      }//end try
-   }//end cleanup
-
-   // Setter for the current user.
-   public void setCurrentUser(String user) {
-      this.currentUser = user;
-   }
-
-   // Getter for the current user.
-   public String getCurrentUser() {
-      return this.currentUser;
-   }
-
-   /**
-    * The main execution method
-    *
-    * @param args the command line arguments this inclues the <mysql|pgsql> <login file>
-    */
-   public static void main (String[] args) {
-      if (args.length != 3) {
-         System.err.println (
-            "Usage: " +
-            "java [-classpath <classpath>] " +
-            PizzaStore.class.getName () +
-            " <dbname> <port> <user>");
-         return;
-      }//end if
-
-      Greeting();
-      PizzaStore esql = null;
-      try{
-         // use postgres JDBC driver.
-         Class.forName ("org.postgresql.Driver").newInstance ();
-         // instantiate the PizzaStore object and creates a physical
-         // connection.
-         String dbname = args[0];
-         String dbport = args[1];
-         String user = args[2];
-         esql = new PizzaStore (dbname, dbport, user, "");
-
-         boolean keepon = true;
-         while(keepon) {
-            // These are sample SQL statements
-            System.out.println("MAIN MENU");
-            System.out.println("---------");
-            System.out.println("1. Create user");
-            System.out.println("2. Log in");
-            System.out.println("9. < EXIT");
-            String authorisedUser = null;
-            switch (readChoice()){
-               case 1: CreateUser(esql); break;
-               case 2: authorisedUser = LogIn(esql); break;
-               case 9: keepon = false; break;
-               default : System.out.println("Unrecognized choice!"); break;
-            }//end switch
-            if (authorisedUser != null) {
-              boolean usermenu = true;
-              while(usermenu) {
-                System.out.println("MAIN MENU");
-                System.out.println("---------");
-                System.out.println("1. View Profile");
-                System.out.println("2. Update Profile");
-                System.out.println("3. View Menu");
-                System.out.println("4. Place Order"); //make sure user specifies which store
-                System.out.println("5. View Full Order ID History");
-                System.out.println("6. View Past 5 Order IDs");
-                System.out.println("7. View Order Information"); //user should specify orderID and then be able to see detailed information about the order
-                System.out.println("8. View Stores"); 
-
-                //**the following functionalities should only be able to be used by drivers & managers**
-                System.out.println("9. Update Order Status");
-
-                //**the following functionalities should ony be able to be used by managers**
-                System.out.println("10. Update Menu");
-                System.out.println("11. Update User");
-
-                System.out.println(".........................");
-                System.out.println("20. Log out");
-                switch (readChoice()){
-                   case 1: viewProfile(esql); break;
-                   case 2: updateProfile(esql); break;
-                   case 3: viewMenu(esql); break;
-                   case 4: placeOrder(esql); break;
-                   case 5: viewAllOrders(esql); break;
-                   case 6: viewRecentOrders(esql); break;
-                   case 7: viewOrderInfo(esql); break;
-                   case 8: viewStores(esql); break;
-                   case 9: updateOrderStatus(esql); break;
-                   case 10: updateMenu(esql); break;
-                   case 11: updateUser(esql); break;
-
-
-
-                   case 20: usermenu = false; break;
-                   default : System.out.println("Unrecognized choice!"); break;
-                }
-              }
-            }
-         }//end while
-      }catch(Exception e) {
-         System.err.println (e.getMessage ());
-      }finally{
-         // make sure to cleanup the created table and close the connection.
-         try{
-            if(esql != null) {
-               System.out.print("Disconnecting from database...");
-               esql.cleanup ();
-               System.out.println("Done\n\nBye !");
-            }//end if
-         }catch (Exception e) {
-            // ignored.
-         }//end try
-      }//end try
-   }//end main
-
-   public static void Greeting(){
-      System.out.println(
-         "\n\n*******************************************************\n" +
-         "              User Interface      	               \n" +
-         "*******************************************************\n");
-   }//end Greeting
-
-   /*
-    * Reads the users choice given from the keyboard
-    * @int
-    **/
-   public static int readChoice() {
-      int input;
-      // returns only if a correct value is given.
-      do {
-         System.out.print("Please make your choice: ");
-         try { // read the integer, parse it and break.
-            input = Integer.parseInt(in.readLine());
-            break;
-         }catch (Exception e) {
-            System.out.println("Your input is invalid!");
-            continue;
-         }//end try
-      }while (true);
-      return input;
-   }//end readChoice
-
-   /**
-    * Function to create a new user
-    **/
-   public static void CreateUser(PizzaStore esql){
-      try {
-         String login, password, role, favoriteItems, phoneNum;
-         // get user login input
-         System.out.print("Enter login: ");
-         login = in.readLine().trim();
-
-         // validate login
-         if (login.length() > 50 || login.isEmpty()) {
-            System.out.println("Error: Login must be between 1 and 50 characters.");
-            return;
-         }
-
-         // check for unique login
-         String checkQuery = String.format("SELECT login FROM Users WHERE login = '%s';", login);
-         int count = esql.executeQuery(checkQuery);
-         if (count > 0) {
-            System.out.println("Error: Login already exists. Please choose a different login.");
-            return;
-         }
-
-         // get user password input
-         System.out.print("Enter password: ");
-         password = in.readLine().trim();
-
-         // validate password
-         if (password.length() > 30 || password.isEmpty()) {
-            System.out.println("Error: Password must be between 1 and 30 characters.");
-            return;
-         }
-
-         // get user phone number input
-         System.out.print("Enter phone number: ");
-         phoneNum = in.readLine().trim();
-         
-         // validate phone number
-         String phoneRegex = "^\\d{3}-\\d{3}-\\d{4}$";
-         if (phoneNum.isEmpty()) {
-            System.out.println("Error: Phone number cannot be empty.");
-            return;
-         }
-         if (!phoneNum.matches(phoneRegex)) {
-            System.out.println("Error: Phone number must be in the format XXX-XXX-XXXX.");
-            return;
-         }
-
-         // set role and favorite item
-         role = "customer";
-         favoriteItems = "";
-
-         // build SQL statement 
-         String query = String.format(
-            "INSERT INTO Users (login, password, role, favoriteItems, phoneNum)" +
-            "VALUES ('%s', '%s', '%s', '%s', '%s');",
-            login, password, role, favoriteItems, phoneNum);
-
-         // execute SQL statement
-         esql.executeUpdate(query);
-         System.out.println("User created successfully!");
-
-      } catch(Exception e) {
-         System.err.println("An error occurred while creating user: " + e.getMessage());
-      }
-   }//end CreateUser
-
-   /**
-    * Check log in credentials for an existing user
-    * @param esql the PizzaStore object
-    * @return User login or null is the user does not exist
-    **/
-   public static String LogIn(PizzaStore esql){
-      try {
-         String user_login, password;
-         // get user login input
-         System.out.print("Enter login: ");
-         user_login = in.readLine().trim();
-
-         // validate login
-         if (user_login.length() > 50 || user_login.isEmpty()) {
-            System.out.println("Error: Login must be between 1 and 50 characters.");
-            return null;
-         }
-
-         System.out.print("Enter password: ");
-         password = in.readLine().trim();
-
-         // validate password
-         if (password.length() > 50 || password.isEmpty()) {
-            System.out.println("Error: Password must be between 1 and 50 characters.");
-            return null;
-         }
-
-         String password_query = String.format("SELECT login, password FROM Users WHERE login = '%s' AND password = '%s';", user_login, password);
-         int count = esql.executeQuery(password_query);
-         if (count <= 0) {
-            System.out.println("Error: User does not exists. Incorrect login or password.");
-            return null;
-         }
-         esql.setCurrentUser(user_login);
-         return user_login;
-      }catch(Exception e) {
-         System.err.println("An error occurred while creating user: " + e.getMessage());
-      }
-
-      return null;
-   }//end LogIn
-
-   /**
-    * Helper function to print the profile of a user.
-    * @param login the login of the user to print the profile of
-    **/
-   public static void printProfileHelper(PizzaStore esql, String login) {
-      System.out.println("\n=== Profile for " + login + " ===");
-      try {
-         // Construct SQL query to fetch the user's profile information.
-         String query = String.format("SELECT favoriteItems, phoneNum, role FROM Users WHERE login = '%s';", login);
-         
-         // Retrieve the result as a list of records.
-         List<List<String>> results = esql.executeQueryAndReturnResult(query);
-         List<String> row = results.get(0);
-         String favoriteItems = row.get(0);
-         String phoneNum = row.get(1);
-         String role = row.get(2);
-         
-         // Prepare a formatted table output.
-         String line = "+----------------------+--------------------------+";
-         System.out.println(line);
-         System.out.printf("| %-20s | %-24s |\n", "Field", "Value");
-         System.out.println(line);
-         System.out.printf("| %-20s | %-24s |\n", "Favorite Items", favoriteItems);
-         System.out.printf("| %-20s | %-24s |\n", "Phone Number", phoneNum);
-         System.out.printf("| %-20s | %-24s |\n", "Role", role);
-         System.out.println(line);
-     } catch (Exception e) {
-         System.err.println("An error occurred while viewing profile: " + e.getMessage());
-     }
-   }
-
-   /**
-    * View the profile of the current user.
-    * @param esql the PizzaStore object
-    */
-   public static void viewProfile(PizzaStore esql) {
-      String login = esql.getCurrentUser();
-      printProfileHelper(esql, login);
-   }
-   
-   /**
-    * Update the profile of the current user.
-    */
-   public static void updateProfile(PizzaStore esql) {
-      String login = esql.getCurrentUser();
-      System.out.println("\n=== Profile Update Menu for " + login + " ===");
-      boolean update_menu = true;
-      while (update_menu) {
-         System.out.println("1. Update favorite item");
-         System.out.println("2. Update phone number");
-         System.out.println("3. Update password");
-         System.out.println("9. < Return to main menu");
-
-         switch (readChoice()) {
-            case 1: //update favorite items
-               try {
-                  String favoriteItem;
-                  System.out.print("Select your favorite item:\n");
-
-                  // fetch all items from the Items table
-                  List<List<String>> items = esql.executeQueryAndReturnResult("SELECT itemName FROM Items;");
-                  for (int i = 0; i < items.size(); i++) {
-                     System.out.println((i + 1) + ". " + items.get(i).get(0));
-                  }
-
-                  // get user choice and check for validation
-                  int choice = readChoice();
-                  if (choice < 1 || choice > items.size()) {
-                     System.out.println("Invalid choice. Please select a valid item.");
-                     break;
-                  }
-                  favoriteItem = items.get(choice - 1).get(0);
-
-                  // update the user's favorite item
-                  String update_query = String.format("UPDATE Users SET favoriteItems = '%s' WHERE login = '%s';", favoriteItem, login);
-                  esql.executeUpdate(update_query);
-                  System.out.println("Favorite item updated successfully to " + favoriteItem + ".");
-               } catch (Exception e) {
-                  System.err.println("An error occurred while updating favorite items: " + e.getMessage());
-               }
-               break;
-            case 2: //update phone number
-               try {
-                  String phoneNum;
-                  System.out.print("Enter phone number: ");
-                  phoneNum = in.readLine().trim();
-
-                  // validate phone number
-                  String phoneRegex = "^\\d{3}-\\d{3}-\\d{4}$";
-                  if (phoneNum.isEmpty()) {
-                     System.out.println("Error: Phone number cannot be empty.");
-                     break;
-                  }
-                  if (!phoneNum.matches(phoneRegex)) {
-                     System.out.println("Error: Phone number must be in the format XXX-XXX-XXXX.");
-                     break;
-                  }
-
-                  String update_query = String.format("UPDATE Users SET phoneNum = '%s' WHERE login = '%s';", phoneNum, login);
-                  esql.executeUpdate(update_query);
-                  System.out.println("Phone number updated successfully.");
-               } catch (Exception e) {
-                  System.err.println("An error occurred while updating phone number: " + e.getMessage());
-               }
-               break;
-            case 3: //update password
-               try {
-                  String password;
-                  System.out.print("Enter new password: ");
-                  password = in.readLine().trim();
-
-                  // validate password
-                  if (password.length() > 50 || password.isEmpty()) {
-                     System.out.println("Error: Password must be between 1 and 50 characters.");
-                     break;
-                  }
-
-                  String update_query = String.format("UPDATE Users SET password = '%s' WHERE login = '%s';", password, login);
-                  esql.executeUpdate(update_query);
-                  System.out.println("Password updated successfully.");
-               } catch (Exception e) {
-                  System.err.println("An error occurred while updating password: " + e.getMessage());
-               }
-               break;
-            case 9:
-               update_menu = false;
-               break;
-            default:
-               System.out.println("Unrecognized choice!");
-               break;
-         }
-      }
-   }
-
-   /**
-    * Allows the user to view all the items on the menu.
-    * Users can filter by item type (using the typeOfItem column) and/or
-    * by a maximum price. They can also choose to sort the results by price 
-    * in ascending (lowest to highest) or descending (highest to lowest) order.
-    * The results are displayed in a nicely formatted table.
-    */
-   public static void viewMenu(PizzaStore esql) {
-      try {
-         // Prompt for filtering by item type
-         System.out.println("Select item type to filter by or press Enter to skip:");
-         System.out.println("1. Entree");
-         System.out.println("2. Sides");
-         System.out.println("3. Drinks");
-         String typeChoice = in.readLine().trim();
-         String typeFilter = "";
-         if (!typeChoice.isEmpty()) {
-            try {
-               int choice = Integer.parseInt(typeChoice);
-               switch(choice) {
-                     case 1: 
-                        typeFilter = "entree";
-                        break;
-                     case 2: 
-                        typeFilter = "sides";
-                        break;
-                     case 3: 
-                        typeFilter = "drinks";
-                        break;
-                     default:
-                        System.out.println("Invalid choice. No type filter will be applied.");
-                        break;
-               }
-            } catch (NumberFormatException e) {
-                  System.out.println("Invalid input. No type filter will be applied.");
-            }
-         }
-
-         // Prompt for filtering by maximum price
-         System.out.print("Enter maximum price to filter by or press Enter to skip: ");
-         String priceInput = in.readLine().trim();
-         Double maxPrice = null;
-         if (!priceInput.isEmpty()) {
-            try {
-                  maxPrice = Double.parseDouble(priceInput);
-            } catch (NumberFormatException nfe) {
-                  System.out.println("Invalid price entered. Price filter will be ignored.");
-            }
-         }
-
-         // Prompt for sorting option
-         System.out.println("Sort by price? (Press Enter to skip sorting)");
-         System.out.println("1. Ascending (lowest to highest)");
-         System.out.println("2. Descending (highest to lowest)");
-         String sortInput = in.readLine().trim();
-         int sortChoice = 3; // default: no sorting
-         if (!sortInput.isEmpty()) {
-            try {
-               sortChoice = Integer.parseInt(sortInput);
-            } catch (NumberFormatException e) {
-               System.out.println("Invalid input. No sorting will be applied.");
-               sortChoice = 3;
-            }
-         }
-
-         // Build the base query using the Items table columns.
-         String query = "SELECT itemName, typeOfItem, price, description FROM Items";
-         boolean hasFilter = false;
-         String whereClause = "";
-
-         // Add item type filter if provided.
-         if (!typeFilter.isEmpty()) {
-            whereClause = whereClause + " typeOfItem = ' " + typeFilter + "'";
-            hasFilter = true;
-         }
-
-         // Add price filter if provided.
-         if (maxPrice != null) {
-            if (hasFilter) {
-                  whereClause += " AND";
-            }
-            whereClause = whereClause + " price <= " + maxPrice;
-            hasFilter = true;
-         }
-
-         // Append WHERE clause if any filters exist.
-         if (hasFilter) {
-            query += " WHERE" + whereClause;
-         }
-
-         // Append ORDER BY clause based on the user's sorting choice.
-         if (sortChoice == 1) {
-            query += " ORDER BY price ASC";
-         } else if (sortChoice == 2) {
-            query += " ORDER BY price DESC";
-         }
-
-         // Execute the query and fetch results.
-         System.out.println(query);
-         List<List<String>> results = esql.executeQueryAndReturnResult(query);
-
-         // If no items found, notify the user.
-         if (results.size() == 0) {
-            System.out.println("No items match your search criteria.");
-            return;
-         }
-
-         // Define the formatted table style similar to the profile output.
-         String line = "+--------------------------------+-----------------+----------+------------------------------------------+";
-         System.out.println(line);
-         System.out.printf("| %-30s | %-15s | %-8s | %-40s |\n", "Item Name", "Type", "Price", "Description");
-         System.out.println(line);
-
-         // Print each item row in the formatted table.
-         for (List<String> row : results) {
-            String itemName = row.get(0);
-            String itemType = row.get(1);
-            String price = row.get(2);
-            String description = row.get(3);
-            // Truncate description if it's too long.
-            if (description.length() > 40) {
-                  description = description.substring(0, 37) + "...";
-            }
-            System.out.printf("| %-30s | %-15s | %-8s | %-40s |\n", itemName, itemType, price, description);
-         }
-         System.out.println(line);
-      } catch (Exception e) {
-         System.err.println("An error occurred while viewing the menu: " + e.getMessage());
-      }
-   }
-
-   /**
-    * Place an order for the current user.
-    * The user can order any item from the menu. User should first be asked which
-    * store they want to order from. User will be asked to input every itemName and quantity
-    * (the amount of each item they want) for each item they want to order. The total price of
-    * their order should be returned and output to the user. After placing the order, the order
-    * information needs to be inserted in the FoodOrder table with a unique orderID (and
-    * make sure you include the store they ordered at). Each itemName, orderID, and the
-    * corresponding quantity should be inserted into the ItemsInOrder table for every item in
-    * the order.
-    */
-   public static void placeOrder(PizzaStore esql) {
-      try {
-         // Display available stores in pages of 10 results
-         System.out.println("Available Stores:");
-         String storeQuery = "SELECT storeID, address, city, state FROM Store;";
-         List<List<String>> stores = esql.executeQueryAndReturnResult(storeQuery);
-         if (stores.size() == 0) {
-            System.out.println("No stores available at the moment.");
-            return;
-         }
-
-         int totalStores = stores.size();
-         int pageSize = 10;
-         int currentIndex = 0;
-
-         while (currentIndex < totalStores) {
-            // Print a page of stores
-            for (int i = currentIndex; i < Math.min(currentIndex + pageSize, totalStores); i++) {
-               List<String> store = stores.get(i);
-               System.out.printf("StoreID: %s, Address: %s, %s, %s\n",
-                                 store.get(0), store.get(1), store.get(2), store.get(3));
-            }
-            currentIndex += pageSize;
-            
-            // If there are more stores to display, ask the user if they want to continue.
-            if (currentIndex < totalStores) {
-               System.out.print("Press ENTER to see more results or type 'q' to quit: ");
-               String input = in.readLine().trim();
-               if (input.equalsIgnoreCase("q")) {
-                     break;
-               }
-            }
-         }
-         
-         // Ask user to choose a store
-         System.out.print("Enter the storeID you want to order from: ");
-         String storeInput = in.readLine().trim();
-         int storeID = Integer.parseInt(storeInput);
-         // Verify store exists
-         String checkStore = String.format("SELECT * FROM Store WHERE storeID = %d;", storeID);
-         int storeCount = esql.executeQuery(checkStore);
-         if (storeCount <= 0) {
-               System.out.println("Invalid store ID. Order cancelled.");
-               return;
-         }
-         
-         // Prepare to collect order items
-         List<String> itemNames = new ArrayList<>();
-         List<Integer> quantities = new ArrayList<>();
-         
-         // Prompt user to add items until they enter a blank item name.
-         while (true) {
-               // Retrieve all available menu items.
-               String menuQuery = "SELECT itemName FROM Items;";
-               List<List<String>> menuItems = esql.executeQueryAndReturnResult(menuQuery);
-               if (menuItems.size() == 0) {
-                  System.out.println("No menu items available at the moment.");
-                  break; // or return, depending on the context
-               }
-
-               // Display available menu items.
-               System.out.println("Available Menu Items:");
-               for (int i = 0; i < menuItems.size(); i++) {
-                  System.out.println((i + 1) + ". " + menuItems.get(i).get(0));
-               }
-
-               // Ask the user to pick an item from the list.
-               System.out.print("Select the number corresponding to the item you want to order (or press ENTER to finish): ");
-               String input = in.readLine().trim();
-               if (input.isEmpty()) {
-                  break; // exit the loop if the user is done ordering
-               }
-
-               int choice;
-               try {
-                  choice = Integer.parseInt(input);
-               } catch (NumberFormatException e) {
-                  System.out.println("Invalid input. Please enter a valid number.");
-                  continue; // prompt the user again
-               }
-
-               if (choice < 1 || choice > menuItems.size()) {
-                  System.out.println("Invalid choice. Please try again.");
-                  continue;
-               }
-
-               // Retrieve the selected item name.
-               String itemName = menuItems.get(choice - 1).get(0);
-               System.out.print("Enter quantity for " + itemName + ": ");
-               String qtyStr = in.readLine().trim();
-               int quantity = Integer.parseInt(qtyStr);
-               if (quantity <= 0) {
-                  System.out.println("Quantity must be positive. Try again.");
-                  continue;
-               }
-               // Add valid item and quantity to the order lists.
-               itemNames.add(itemName);
-               quantities.add(quantity);
-         }
-         
-         // Check that at least one item was ordered.
-         if (itemNames.size() == 0) {
-               System.out.println("No items ordered. Order cancelled.");
-               return;
-         }
-         
-         // Calculate the total price for the order.
-         double totalPrice = 0.0;
-         for (int i = 0; i < itemNames.size(); i++) {
-               String query = String.format("SELECT price FROM Items WHERE itemName = '%s';", itemNames.get(i));
-               List<List<String>> priceResult = esql.executeQueryAndReturnResult(query);
-               double price = Double.parseDouble(priceResult.get(0).get(0));
-               totalPrice += price * quantities.get(i);
-         }
-         
-         // Generate a unique orderID by finding the current maximum orderID and adding 1.
-         String maxQuery = "SELECT MAX(orderID) FROM FoodOrder;";
-         List<List<String>> maxResult = esql.executeQueryAndReturnResult(maxQuery);
-         int newOrderID = 1;
-         if (maxResult.size() > 0 && maxResult.get(0).get(0) != null) {
-               newOrderID = Integer.parseInt(maxResult.get(0).get(0)) + 1;
-         }
-         
-         // Insert the order into the FoodOrder table.
-         String currentUser = esql.getCurrentUser();
-         String insertOrder = String.format(
-               "INSERT INTO FoodOrder (orderID, login, storeID, totalPrice, orderTimestamp, orderStatus) " +
-               "VALUES (%d, '%s', %d, %.2f, now(), 'incomplete');",
-               newOrderID, currentUser, storeID, totalPrice);
-         esql.executeUpdate(insertOrder);
-         
-         // Insert each item in the order into the ItemsInOrder table.
-         for (int i = 0; i < itemNames.size(); i++) {
-               String insertItem = String.format(
-                  "INSERT INTO ItemsInOrder (orderID, itemName, quantity) " +
-                  "VALUES (%d, '%s', %d);",
-                  newOrderID, itemNames.get(i), quantities.get(i));
-               esql.executeUpdate(insertItem);
-         }
-         
-         // Output the total price to the user.
-         System.out.println("Order placed successfully!");
-         System.out.println("Your total price is: $" + String.format("%.2f", totalPrice));
-         
-      } catch (Exception e) {
-         System.err.println("An error occurred while placing the order: " + e.getMessage());
-      }
-   }
-
-   /*
-      View info about all user's order. Customers can only see their own order info.
-      Managers and drivers can view all orders of a specific user.
-   */
-   public static void viewAllOrders(PizzaStore esql) {
-      try {
-         //Get role of current user
-         String curr_user_login = esql.getCurrentUser();
-         String user_role_query = String.format("SELECT role FROM Users WHERE login = '%s'", curr_user_login);
-         List<List<String>> user = esql.executeQueryAndReturnResult(user_role_query);
-         String user_role = user.get(0).get(0).trim();
-
-         if (user_role.equals(String.format("customer"))) { //if customer, find order with user login
-            String food_order_query = 
-               String.format("SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID GROUP BY F.orderID, I.itemName, I.quantity HAVING F.login = '%s'", 
-               curr_user_login);
-            List<List<String>> user_orders = esql.executeQueryAndReturnResult(food_order_query);
-            if (user_orders.size() <= 0) {
-               System.out.println("No orders in history");
-               return;
-            }
-
-            //turn the all user_orders into List of Lists of each order
-            List<List<String>> individual_orders = new ArrayList<>();
-            List<String> each_order = new ArrayList<>();
-            each_order.add(user_orders.get(0).get(0));
-            each_order.add(user_orders.get(0).get(1));
-            each_order.add(user_orders.get(0).get(2));
-            each_order.add(user_orders.get(0).get(3).trim());
-            each_order.add(user_orders.get(0).get(4));
-            each_order.add(user_orders.get(0).get(5));
-
-            //grab items in orders order = (orderID, itemName, quantity, itemName, quanitity, ...)
-            for (int i = 1; i < user_orders.size(); i++) {
-               String orderID = user_orders.get(i).get(0);
-
-               if (!orderID.equals(each_order.get(0))) {
-                  individual_orders.add(each_order);
-                  each_order = new ArrayList<>();
-                  each_order.add(orderID);
-                  each_order.add(user_orders.get(i).get(1));
-                  each_order.add(user_orders.get(i).get(2));
-                  each_order.add(user_orders.get(i).get(3).trim());
-               }
-
-               each_order.add(user_orders.get(i).get(4));
-               each_order.add(user_orders.get(i).get(5));
-
-            }
-            individual_orders.add(each_order);
-
-            //print out the orders 
-            for (int i = 0; i < individual_orders.size(); i++) {
-               String id = individual_orders.get(i).get(0);
-               // String timestamp = individual_orders.get(i).get(1);
-               // String orderPrice = individual_orders.get(i).get(2);
-               // String status = individual_orders.get(i).get(3);
-               // String firstItem = individual_orders.get(i).get(4);
-               // String firstQuantity = individual_orders.get(i).get(5);
-
-               String line = "+----------------------+------------------------------------------+";
-               System.out.println(line);
-               System.out.printf("| %-20s | %-40s |\n", "Field", "Value");
-               System.out.println(line);
-               System.out.printf("| %-20s | %-40s |\n", "OrderID", id);
-               // System.out.printf("| %-20s | %-40s |\n", "Order Timestamp", timestamp);
-               // System.out.printf("| %-20s | %-40s |\n", "Total Price", orderPrice);
-               // System.out.printf("| %-20s | %-40s |\n", "Order Status", status);
-               // System.out.printf("| %-20s | %-40s |\n", "", "");
-               // System.out.println(line);
-               // System.out.printf("| %-20s | %-40s |\n", "Items - Quantity", firstItem + " x " + firstQuantity);
-               // for (int j = 6; j < individual_orders.get(i).size() - 1; j = j + 2) {
-               //    System.out.printf("| %-20s | %-40s |\n", "", individual_orders.get(i).get(j) + " x " +individual_orders.get(i).get(j + 1));
-               // }
-               System.out.println(line);
-            }
-         }
-         else { //if current user is a manager or driver
-            String input_login; // get user login
-            System.out.print("Input user login: ");
-            input_login = in.readLine().trim();
-
-            //check if user exists
-            String check_user_query = String.format("SELECT * FROM Users WHERE login = '%s'", input_login);
-            int count = esql.executeQuery(check_user_query);
-            if (count <= 0) {
-               System.out.println("User does not exist");
-               return;
-            }
-            String food_order_query = 
-               String.format("SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID GROUP BY F.orderID, I.itemName, I.quantity HAVING F.login = '%s'", 
-               input_login);
-            List<List<String>> user_orders = esql.executeQueryAndReturnResult(food_order_query);
-            if (user_orders.size() <= 0) {
-               System.out.println("No orders in history");
-               return;
-            }
-
-            List<List<String>> individual_orders = new ArrayList<>();
-            List<String> each_order = new ArrayList<>();
-            each_order.add(user_orders.get(0).get(0));
-            each_order.add(user_orders.get(0).get(1));
-            each_order.add(user_orders.get(0).get(2));
-            each_order.add(user_orders.get(0).get(3).trim());
-            each_order.add(user_orders.get(0).get(4));
-            each_order.add(user_orders.get(0).get(5));
-
-            //grab items in orders order = (orderID, itemName, quantity, itemName, quanitity, ...)
-            for (int i = 1; i < user_orders.size(); i++) {
-               String orderID = user_orders.get(i).get(0);
-
-               if (!orderID.equals(each_order.get(0))) {
-                  individual_orders.add(each_order);
-                  each_order = new ArrayList<>();
-                  each_order.add(orderID);
-                  each_order.add(user_orders.get(i).get(1));
-                  each_order.add(user_orders.get(i).get(2));
-                  each_order.add(user_orders.get(i).get(3).trim());
-               }
-
-               each_order.add(user_orders.get(i).get(4));
-               each_order.add(user_orders.get(i).get(5));
-
-            }
-            individual_orders.add(each_order);
-
-            //print out the orders
-            for (int i = 0; i < individual_orders.size(); i++) {
-               String id = individual_orders.get(i).get(0);
-               // String timestamp = individual_orders.get(i).get(1);
-               // String orderPrice = individual_orders.get(i).get(2);
-               // String status = individual_orders.get(i).get(3);
-               // String firstItem = individual_orders.get(i).get(4);
-               // String firstQuantity = individual_orders.get(i).get(5);
-
-               String line = "+----------------------+------------------------------------------+";
-               System.out.println(line);
-               System.out.printf("| %-20s | %-40s |\n", "Field", "Value");
-               System.out.println(line);
-               System.out.printf("| %-20s | %-40s |\n", "OrderID", id);
-               // System.out.printf("| %-20s | %-40s |\n", "Order Timestamp", timestamp);
-               // System.out.printf("| %-20s | %-40s |\n", "Total Price", orderPrice);
-               // System.out.printf("| %-20s | %-40s |\n", "Order Status", status);
-               // System.out.printf("| %-20s | %-40s |\n", "", "");
-               // System.out.println(line);
-               // System.out.printf("| %-20s | %-40s |\n", "Items - Quantity", firstItem + " x " + firstQuantity);
-               // for (int j = 6; j < individual_orders.get(i).size() - 1; j = j + 2) {
-               //    System.out.printf("| %-20s | %-40s |\n", "", individual_orders.get(i).get(j) + " x " +individual_orders.get(i).get(j + 1));
-               // }
-               System.out.println(line);
-            }
-         }
-
-         return;
-      }catch(Exception e) {
-         System.err.println("An error occured when while viewing an order: " + e.getMessage());
-      }
-   }
-
-   /*
-      View your recent 5 orders 
-   */
-   public static void viewRecentOrders(PizzaStore esql) {
-      try {
-         String recent_order = String.format(
-            "SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID GROUP BY F.orderID, I.itemName, I.quantity HAVING F.login = '%s' ORDER BY F.orderID DESC", 
-            esql.getCurrentUser());
-         List<List<String>> user_orders = esql.executeQueryAndReturnResult(recent_order);
-         //turn the all user_orders into List of Lists of each order
-         if (user_orders.size() <= 0) {
-            System.out.println("No orders in history");
-            return;
-         }
-         List<List<String>> individual_orders = new ArrayList<>();
-         List<String> each_order = new ArrayList<>();
-         each_order.add(user_orders.get(0).get(0));
-         each_order.add(user_orders.get(0).get(1));
-         each_order.add(user_orders.get(0).get(2));
-         each_order.add(user_orders.get(0).get(3).trim());
-         each_order.add(user_orders.get(0).get(4));
-         each_order.add(user_orders.get(0).get(5));
-
-         //grab items in orders order = (orderID, itemName, quantity, itemName, quanitity, ...)
-         for (int i = 1; i < user_orders.size(); i++) {
-            String orderID = user_orders.get(i).get(0);
-
-            if (!orderID.equals(each_order.get(0))) {
-               individual_orders.add(each_order);
-               each_order = new ArrayList<>();
-               each_order.add(orderID);
-               each_order.add(user_orders.get(i).get(1));
-               each_order.add(user_orders.get(i).get(2));
-               each_order.add(user_orders.get(i).get(3).trim());
-            }
-
-            each_order.add(user_orders.get(i).get(4));
-            each_order.add(user_orders.get(i).get(5));
-         }
-         individual_orders.add(each_order);
-
-         //print out the orders 
-         for (int i = 0; i < Math.min(individual_orders.size(), 5); i++) {
-            String id = individual_orders.get(i).get(0);
-            // String timestamp = individual_orders.get(i).get(1);
-            // String orderPrice = individual_orders.get(i).get(2);
-            // String status = individual_orders.get(i).get(3);
-            // String firstItem = individual_orders.get(i).get(4);
-            // String firstQuantity = individual_orders.get(i).get(5);
-
-            String line = "+----------------------+------------------------------------------+";
-            System.out.println(line);
-            System.out.printf("| %-20s | %-40s |\n", "Field", "Value");
-            System.out.println(line);
-            System.out.printf("| %-20s | %-40s |\n", "OrderID", id);
-            // System.out.printf("| %-20s | %-40s |\n", "Order Timestamp", timestamp);
-            // System.out.printf("| %-20s | %-40s |\n", "Total Price", orderPrice);
-            // System.out.printf("| %-20s | %-40s |\n", "Order Status", status);
-            // System.out.printf("| %-20s | %-40s |\n", "", "");
-            // System.out.println(line);
-            // System.out.printf("| %-20s | %-40s |\n", "Items - Quantity", firstItem + " x " + firstQuantity);
-            // for (int j = 6; j < individual_orders.get(i).size() - 1; j = j + 2) {
-            //    System.out.printf("| %-20s | %-40s |\n", "", individual_orders.get(i).get(j) + " x " +individual_orders.get(i).get(j + 1));
-            // }
-            System.out.println(line);
-         }
-      }catch(Exception e) {
-         System.err.println("An error occured when while viewing the 5 recent orders: " + e.getMessage());
-      }
-   }//end viewRecentOrders
-
-   /*
-      View your a specific order based on a provided orderID (customers can only view their own and managers/drivers can view any)
-   */
-   public static void viewOrderInfo(PizzaStore esql) {
-      try {
-         //Get role of current user
-         String curr_user_login = esql.getCurrentUser();
-         String user_role_query = String.format("SELECT role FROM Users WHERE login = '%s'", curr_user_login);
-         List<List<String>> user = esql.executeQueryAndReturnResult(user_role_query);
-         String user_role = user.get(0).get(0).trim();
-
-         if (user_role.equals(String.format("customer"))) { //if customer, find order with user login
-            String food_order_query = 
-               String.format("SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID GROUP BY F.orderID, I.itemName, I.quantity HAVING F.login = '%s' ORDER BY F.orderID ASC", 
-               curr_user_login);
-            List<List<String>> user_orders = esql.executeQueryAndReturnResult(food_order_query);
-            if (user_orders.size() <= 0) {
-               System.out.println("No orders in history");
-               return;
-            }
-
-            //turn the all user_orders into List of Lists of each order
-            List<List<String>> individual_orders = new ArrayList<>();
-            List<String> each_order = new ArrayList<>();
-            each_order.add(user_orders.get(0).get(0));
-            each_order.add(user_orders.get(0).get(1));
-            each_order.add(user_orders.get(0).get(2));
-            each_order.add(user_orders.get(0).get(3).trim());
-            each_order.add(user_orders.get(0).get(4));
-            each_order.add(user_orders.get(0).get(5));
-
-            //grab items in orders order = (orderID, itemName, quantity, itemName, quanitity, ...)
-            for (int i = 1; i < user_orders.size(); i++) {
-               String orderID = user_orders.get(i).get(0);
-
-               if (!orderID.equals(each_order.get(0))) {
-                  individual_orders.add(each_order);
-                  each_order = new ArrayList<>();
-                  each_order.add(orderID);
-                  each_order.add(user_orders.get(i).get(1));
-                  each_order.add(user_orders.get(i).get(2));
-                  each_order.add(user_orders.get(i).get(3).trim());
-               }
-
-               each_order.add(user_orders.get(i).get(4));
-               each_order.add(user_orders.get(i).get(5));
-
-            }
-            individual_orders.add(each_order);
-            
-            String order_id;
-            System.out.print("Provide the orderID of the order you want to look at: ");
-            order_id = in.readLine().trim();
-
-            //print out the orders 
-            for (int i = 0; i < individual_orders.size(); i++) {
-               String id = individual_orders.get(i).get(0);
-               String timestamp = individual_orders.get(i).get(1);
-               String orderPrice = individual_orders.get(i).get(2);
-               String status = individual_orders.get(i).get(3);
-               String firstItem = individual_orders.get(i).get(4);
-               String firstQuantity = individual_orders.get(i).get(5);
-
-               if (id.equals(order_id)) {
-                  String line = "+----------------------+------------------------------------------+";
-                  System.out.println(line);
-                  System.out.printf("| %-20s | %-40s |\n", "Field", "Value");
-                  System.out.println(line);
-                  System.out.printf("| %-20s | %-40s |\n", "OrderID", id);
-                  System.out.printf("| %-20s | %-40s |\n", "Order Timestamp", timestamp);
-                  System.out.printf("| %-20s | %-40s |\n", "Total Price", orderPrice);
-                  System.out.printf("| %-20s | %-40s |\n", "Order Status", status);
-                  System.out.printf("| %-20s | %-40s |\n", "", "");
-                  System.out.println(line);
-                  System.out.printf("| %-20s | %-40s |\n", "Items - Quantity", firstItem + " x " + firstQuantity);
-                  for (int j = 6; j < individual_orders.get(i).size() - 1; j = j + 2) {
-                     System.out.printf("| %-20s | %-40s |\n", "", individual_orders.get(i).get(j) + " x " +individual_orders.get(i).get(j + 1));
-                  }
-                  System.out.println(line);
-               }
-            }
-         }
-         else { //if current user is a manager or driver
-            String food_order_query = 
-               String.format("SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID GROUP BY F.orderID, I.itemName, I.quantity ORDER BY F.orderID ASC");
-            List<List<String>> user_orders = esql.executeQueryAndReturnResult(food_order_query);
-            if (user_orders.size() <= 0) {
-               System.out.println("No orders in history");
-               return;
-            }
-
-            List<List<String>> individual_orders = new ArrayList<>();
-            List<String> each_order = new ArrayList<>();
-            each_order.add(user_orders.get(0).get(0));
-            each_order.add(user_orders.get(0).get(1));
-            each_order.add(user_orders.get(0).get(2));
-            each_order.add(user_orders.get(0).get(3).trim());
-            each_order.add(user_orders.get(0).get(4));
-            each_order.add(user_orders.get(0).get(5));
-
-            //grab items in orders order = (orderID, itemName, quantity, itemName, quanitity, ...)
-            for (int i = 1; i < user_orders.size(); i++) {
-               String orderID = user_orders.get(i).get(0);
-
-               if (!orderID.equals(each_order.get(0))) {
-                  individual_orders.add(each_order);
-                  each_order = new ArrayList<>();
-                  each_order.add(orderID);
-                  each_order.add(user_orders.get(i).get(1));
-                  each_order.add(user_orders.get(i).get(2));
-                  each_order.add(user_orders.get(i).get(3).trim());
-               }
-
-               each_order.add(user_orders.get(i).get(4));
-               each_order.add(user_orders.get(i).get(5));
-
-            }
-            individual_orders.add(each_order);
-
-            String order_id; //get orderid
-            System.out.print("Provide the orderID of the order you want to look at: ");
-            order_id = in.readLine().trim();
-
-            //print out the orders
-            for (int i = 0; i < individual_orders.size(); i++) {
-               String id = individual_orders.get(i).get(0);
-               String timestamp = individual_orders.get(i).get(1);
-               String orderPrice = individual_orders.get(i).get(2);
-               String status = individual_orders.get(i).get(3);
-               String firstItem = individual_orders.get(i).get(4);
-               String firstQuantity = individual_orders.get(i).get(5);
-
-               if (id.equals(order_id)) {
-                  String line = "+----------------------+------------------------------------------+";
-                  System.out.println(line);
-                  System.out.printf("| %-20s | %-40s |\n", "Field", "Value");
-                  System.out.println(line);
-                  System.out.printf("| %-20s | %-40s |\n", "OrderID", id);
-                  System.out.printf("| %-20s | %-40s |\n", "Order Timestamp", timestamp);
-                  System.out.printf("| %-20s | %-40s |\n", "Total Price", orderPrice);
-                  System.out.printf("| %-20s | %-40s |\n", "Order Status", status);
-                  System.out.printf("| %-20s | %-40s |\n", "", "");
-                  System.out.println(line);
-                  System.out.printf("| %-20s | %-40s |\n", "Items - Quantity", firstItem + " x " + firstQuantity);
-                  for (int j = 6; j < individual_orders.get(i).size() - 1; j = j + 2) {
-                     System.out.printf("| %-20s | %-40s |\n", "", individual_orders.get(i).get(j) + " x " +individual_orders.get(i).get(j + 1));
-                  }
-                  System.out.println(line);
-               }
-            }
-         }
-
-         return;
-      }catch(Exception e) {
-         System.err.println("An error occured when while viewing an order: " + e.getMessage());
-      }
-   }//end viewOrderInfo
-
-   /**
-    * Customers should be able to view the list of all stores. They should see all
-    * information about the location of the store, the storeID, the review score, and whether or
-    * not it is open
-    */
-    public static void viewStores(PizzaStore esql) {
-      try {
-         // Query to fetch all necessary store details
-         String query = "SELECT storeID, address, city, state, reviewScore, isOpen FROM Store ORDER BY storeID;";
-         List<List<String>> stores = esql.executeQueryAndReturnResult(query);
-         
-         if (stores.size() == 0) {
-            System.out.println("No stores available at the moment.");
-            return;
-         }
-         
-         // Define a formatted table header
-         String line = "+---------+-----------------------------+--------------------+----------------------+-------------+---------+";
-         System.out.println(line);
-         System.out.printf("| %-7s | %-27s | %-18s | %-20s | %-11s | %-7s |\n", 
-                           "StoreID", "Address", "City", "State", "ReviewScore", "IsOpen");
-         System.out.println(line);
-         
-         // Loop through the result set and print each store record
-         for (List<String> store : stores) {
-            String storeID = store.get(0);
-            String address = store.get(1);
-            String city = store.get(2);
-            String state = store.get(3);
-            String reviewScoreStr = store.get(4);
-            String isOpen = store.get(5);
-
-            // Convert review score from string to double
-            double reviewScore = Double.parseDouble(reviewScoreStr);
-            // Assume review score is out of 5.
-            int fullStars = (int) reviewScore;
-            int emptyStars = 5 - fullStars;
-            StringBuilder stars = new StringBuilder();
-            for (int i = 0; i < fullStars; i++) {
-               stars.append("★");
-            }
-            for (int i = 0; i < emptyStars; i++) {
-               stars.append("☆");
-            }
-            
-            System.out.printf("| %-7s | %-27s | %-18s | %-20s | %-11s | %-7s |\n", 
-                              storeID, address, city, state, stars.toString(), isOpen);
-         }
-         System.out.println(line);
-      } catch (Exception e) {
-         System.err.println("An error occurred while viewing stores: " + e.getMessage());
-      }
-   }
-
-   /**
-    * Update the Order Status of a given orderID (must be driver or manager)
-   */
-   public static void updateOrderStatus(PizzaStore esql) {
-      try {
-         String curr_user_login = esql.getCurrentUser();
-         String user_role_query = String.format("SELECT role FROM Users WHERE login = '%s'", curr_user_login);
-         List<List<String>> user = esql.executeQueryAndReturnResult(user_role_query);
-         String user_role = user.get(0).get(0).trim(); // check if role is not customer
-
-         if (user_role.equals(String.format("driver")) || user_role.equals(String.format("manager"))) {
-            String update_orderid; //get order id to update
-            System.out.print("Order ID: ");
-            update_orderid = in.readLine().trim();
-
-            String check_order = String.format("SELECT * FROM FoodOrder WHERE orderID = '%s'", update_orderid);
-            int count = esql.executeQuery(check_order); //check if order exist
-            if (count <= 0) {
-               System.out.println("Error: Order does not exist.\n");
-               return;
-            }
-
-            System.out.println(String.format("Update Status for Order %s: ", update_orderid));
-            System.out.println("1. Complete");
-            System.out.println("2. Incomplete");
-
-            String update_status_query;
-            String update_status = "";
-            switch (readChoice()) {
-               case 1:
-                  update_status_query = String.format("UPDATE FoodOrder SET orderStatus = 'complete' WHERE orderId = '%s'", update_orderid);
-                  esql.executeUpdate(update_status_query);
-                  update_status = "complete";
-                  break;
-               case 2:
-                  update_status_query = String.format("UPDATE FoodOrder SET orderStatus = 'incomplete' WHERE orderId = '%s'", update_orderid);
-                  esql.executeUpdate(update_status_query);
-                  update_status = "incomplete";
-                  break;
-               default:
-                  break;
-            }
-
-            System.out.println("Order status for order " + update_orderid + " updated successfully to " + update_status + ".\n"); 
-
-            return; 
-         }
-      }catch(Exception e) {
-            System.err.println("An error occured when while updating the order status: " + e.getMessage());   
-      }
-   }// end updateOrderStatus
-
-   /*
-      Managers can update the information of any item in the menu given the itemName and add in new items.
-   */
-   public static void updateMenu(PizzaStore esql) {
-      try {
-         String curr_user_login = esql.getCurrentUser();
-         String user_role_query = String.format("SELECT role FROM Users WHERE login = '%s'", curr_user_login);
-         List<List<String>> user = esql.executeQueryAndReturnResult(user_role_query);
-         String user_role = user.get(0).get(0).trim();
-
-         if (user_role.equals(String.format("manager"))) {
-            String menu_query = String.format("SELECT itemName, price, typeOfItem FROM Items ORDER BY CASE WHEN typeOfItem = ' entree' THEN 1 WHEN typeOfItem = ' drinks' THEN 2 WHEN typeOfItem = ' sides' THEN 3 END ASC");
-            List<List<String>> menu = esql.executeQueryAndReturnResult(menu_query);//ORDER BY price DESC
-            System.out.println(menu);
-            String line = "+------------------------------------------+----------------------+"; //rbandyo,cpendreigho
-            System.out.println(line);
-            System.out.printf("| %-40s | %-20s |\n", "Item", "Price");
-            System.out.println(line);
-            for (int i = 0; i < menu.size(); ++i) {
-               String item = menu.get(i).get(0);
-               String price = menu.get(i).get(1);
-               System.out.printf("| %-40s | %-20s |\n", item, price);
-            }
-            System.out.println(line);
-            System.out.println("MENU UPDATE");
-            System.out.println("-----------");
-            System.out.println("1. Update an existing item");
-            System.out.println("2. Add a new item");
-            System.out.println("9. < EXIT");
-            switch(readChoice()) {//rbandyo,cpendreigho
-               case 1:
-                  String update_item;
-                  System.out.print("Select an item to update: ");
-                  update_item = in.readLine().trim();
-                  String check_item = String.format("SELECT * FROM Items WHERE itemName = '%s'", update_item);
-                  int count = esql.executeQuery(check_item);
-                  if (count <= 0) {
-                     System.out.println(String.format("%s is not on the menu", update_item));
-                     break;
-                  }
-                  System.out.println("ITEM UPDATE");
-                  System.out.println("-----------");
-                  System.out.println("1. Update item name");
-                  System.out.println("2. Update item ingredients");
-                  System.out.println("3. Update item type");
-                  System.out.println("4. Update item price");
-                  System.out.println("5. Update item description");
-                  System.out.println("9. < EXIT");
-                  switch(readChoice()) {
-                     case 1:
-                        String new_item_name;
-                        System.out.print(String.format("Provide a new name for %s: ", update_item));
-                        new_item_name = in.readLine().trim();
-                        String check_item2 = String.format("SELECT * FROM Items WHERE itemName = '%s'", new_item_name);
-                        int count2 = esql.executeQuery(check_item2);
-                        if (count2 > 0) {
-                           System.out.println(String.format("%s is already on the menu", new_item_name));
-                           break;
-                        }
-                        String update_name = String.format("UPDATE Items SET itemName = '%s' WHERE itemName = '%s'", new_item_name, update_item);
-                        esql.executeUpdate(update_name);
-                        System.out.println(String.format("%s is now %s", update_item, new_item_name));
-                        break;
-                     case 2:
-                        String new_item_ingredients;
-                        List<List<String>> curr_ingredients = esql.executeQueryAndReturnResult(String.format("SELECT ingredients FROM Items WHERE itemName = '%s'", update_item));
-                        System.out.println(String.format("Current ingredients for %s: %s", update_item, curr_ingredients.get(0).get(0)));
-                        System.out.print(String.format("Provide updated ingredients for %s (separated by commas): ", update_item));
-                        new_item_ingredients = in.readLine().trim();
-                        new_item_ingredients = String.format("\"%s\"", new_item_ingredients);
-                        String update_ingredients = String.format("UPDATE Items SET ingredients = '%s' WHERE itemName = '%s'", new_item_ingredients, update_item);
-                        esql.executeUpdate(update_ingredients);
-                        System.out.println(String.format("%s's is now %s", update_item, new_item_ingredients));
-                        break;
-                     case 3:
-                        List<List<String>> curr_type = esql.executeQueryAndReturnResult(String.format("SELECT typeOfItem FROM Items WHERE itemName = '%s'", update_item));
-                        String update_type = String.format("UPDATE Items SET typeOfItem = ");
-                        String new_type = "";
-                        System.out.println(String.format("UPDATE %s FROM %s TO: ", update_item, curr_type.get(0).get(0).trim()));
-                        System.out.println("-----------");
-                        System.out.println("1. entree");
-                        System.out.println("2. drinks");
-                        System.out.println("3. sides");
-                        switch(readChoice()) {
-                           case 1:
-                              new_type = " entree";
-                              break;
-                           case 2:
-                              new_type = " drinks";
-                              break;
-                           case 3:
-                              new_type = " sides";
-                              break;
-                           default:
-                              System.out.println("Invalid choice");
-                              return;
-                        }
-                        update_type += String.format("'%s' WHERE itemName = '%s'", new_type, update_item);
-                        esql.executeUpdate(update_type);
-                        break;
-                     case 4:
-                        double new_item_price = 0.0;
-                        System.out.print(String.format("Provide a new price for %s", update_item));
-                        try {
-                           new_item_price = Double.parseDouble(in.readLine().trim());
-                        }catch(Exception e) {
-                           System.err.println("Invalid input: " + e.getMessage());
-                        }
-                        String update_price = String.format("UPDATE Items SET price = '%f' WHERE itemName = '%s'", new_item_price, update_item);
-                        esql.executeUpdate(update_price);
-                        System.out.println(String.format("%s is now %f", update_item, new_item_price));
-                        break;
-                     case 5:
-                        String new_item_description;
-                        List<List<String>> curr_description = esql.executeQueryAndReturnResult(String.format("SELECT description FROM Items WHERE itemName = '%s'", update_item));
-                        System.out.println(String.format("Current description for %s: %s", update_item, curr_description.get(0).get(0)));
-                        System.out.print(String.format("Provide updated decription for %s : ", update_item));
-                        new_item_description = in.readLine().trim();
-                        new_item_description = String.format("\"%s\"", new_item_description);
-                        String update_description = String.format("UPDATE Items SET description = '%s' WHERE itemName = '%s'", new_item_description, update_item);
-                        esql.executeUpdate(update_description);
-                        break;
-                     case 9:
-                        break;
-                     default:
-                        System.out.println("Invalid choice");
-                        break;
-                  }
-                  break;
-               case 2:
-                  String new_item_name;
-                  String new_item_ingredients;
-                  String new_item_type;
-                  double new_item_price = 0.0;
-                  String new_item_description;
-                  
-                  System.out.print("Provide the new item's name: ");
-                  new_item_name = in.readLine().trim();
-                  int count3 = esql.executeQuery(String.format("SELECT * FROM Items WHERE itemName = '%s'", new_item_name));
-                  if (count3 > 0) {
-                     System.out.println("Item is already on the menu");
-                     return;
-                  }
-                  System.out.print("Provide the new item's ingredients (separated by commas): ");
-                  new_item_ingredients = in.readLine().trim();
-                  new_item_ingredients = String.format("\"%s\"");
-
-                  System.out.println("Provide the new item's type: ");
-                  System.out.println("1. entree");
-                  System.out.println("2. drinks");
-                  System.out.println("3. sides");
-                  switch(readChoice()) {
-                     case 1:
-                        new_item_type = " entree";
-                        break;
-                     case 2:
-                        new_item_type = " drinks";
-                        break;
-                     case 3:
-                        new_item_type = " sides";
-                        break;
-                     default:
-                        System.out.println("Invalid choice");
-                        return;
-                  }
-
-                  System.out.print("Provide the new item's price: ");
-                  try {
-                     new_item_price = Double.parseDouble(in.readLine().trim());
-                  }catch(Exception e) {
-                     System.err.println("Invalid input: " + e.getMessage());
-                  }
-
-                  System.out.print("Provide a description of the new item: ");
-                  new_item_description = in.readLine().trim();
-                  new_item_description = String.format("\"%s\"", new_item_description);
-
-                  String insert_new_item = String.format(
-                     "INSERT INTO Items (itemName, ingredients, typeOfItem, price, description) VALUES ('%s', '%s', '%s', %f, '%s')",
-                     new_item_name, new_item_ingredients, new_item_type, new_item_price, new_item_description);
-                  esql.executeUpdate(insert_new_item);
-                  System.out.println(String.format("%s is now on the menu", new_item_name));
-                  break;
-               case 9:
-                  break;
-               default:
-                  System.out.println("Invalid choice");
-                  break;
-            }
-            System.out.println("UPDATED MENU");
-            menu_query = String.format("SELECT itemName, price, typeOfItem FROM Items ORDER BY CASE WHEN typeOfItem = ' entree' THEN 1 WHEN typeOfItem = ' drinks' THEN 2 WHEN typeOfItem = ' sides' THEN 3 END ASC");
-            menu = esql.executeQueryAndReturnResult(menu_query);//ORDER BY price DESC
-            System.out.println(menu);
-            System.out.println(line);
-            System.out.printf("| %-40s | %-20s |\n", "Item", "Price");
-            System.out.println(line);
-            for (int i = 0; i < menu.size(); ++i) {
-               String item = menu.get(i).get(0);
-               String price = menu.get(i).get(1);
-               System.out.printf("| %-40s | %-20s |\n", item, price);
-            }
-            return;
-         }
-         else {
-            System.out.println("You are not a manager");
-         }
-
-         return;
-      }catch(Exception e) {
-         System.err.println("An error occured when updating the menu: " + e.getMessage());
-      }
-   }//end updateMenu
-   
-   /**
-    * Update a user's login and role as a manager
-   */
-   public static void updateUser(PizzaStore esql) {
-      try {
-         String manager_login = esql.getCurrentUser();
-
-         //check if role is manager
-         String check_role_query = String.format("SELECT * FROM Users WHERE login = '%s' AND role = 'manager'", manager_login);
-         if (esql.executeQuery(check_role_query) < 1) {
-            System.out.println("Error: Access denied. You must be a manager to update a user.");
-            return;
-         }
-
-         //Pick user you want to update
-         System.out.print("Enter the login of the user you want to update: ");
-         String update_login = in.readLine().trim();
-
-         //check if user exists
-         String user_exists = String.format("SELECT * FROM Users WHERE login = '%s'", update_login);
-         if (esql.executeQuery(user_exists) < 1) {
-            System.out.println("Error: User " + update_login + " does not exist\n");
-            return;
-         }
-
-         boolean update_menu = true;
-         while (update_menu) {
-             //Update menu
-            System.out.println("UPDATE MENU FOR USER: " + update_login);
-            System.out.println("-----------");
-            System.out.println("1. Update user's login");
-            System.out.println("2. Update user's role");
-            System.out.println("9. < EXIT");
-
-            switch(readChoice()) {
-               case 1: //new login validation
-                  System.out.print("New user login: ");
-                  String new_login = in.readLine().trim();
-                  String check_new_login = String.format("SELECT * FROM Users WHERE login = '%s'", new_login);
-                  if (esql.executeQuery(check_new_login) > 0) {
-                     System.out.println("User login already exists. Please pick another one");
-                     break;
-                  }
-                  String update_login_query = String.format("UPDATE Users SET login = '%s' WHERE login = '%s'", new_login, update_login);
-                  esql.executeUpdate(update_login_query);
-                  update_login = new_login; // Update the login identifier for further operations.
-                  System.out.println("User login updated successfully. New profile:");
-                  printProfileHelper(esql, update_login);
-                  break;
-               case 2: //new user role with numeric selection
-                  //read in new role
-                  System.out.println("Select new role:");
-                  System.out.println("1. Customer");
-                  System.out.println("2. Manager");
-                  System.out.println("3. Driver");
-                  int roleChoice;
-                  try {
-                     roleChoice = Integer.parseInt(in.readLine().trim());
-                  } catch(NumberFormatException e) {
-                     System.out.println("Invalid input. Please enter a number.");
-                     break;
-                  }
-                  String new_role = "";
-                  switch(roleChoice) {
-                     case 1:
-                        new_role = "customer";
-                        break;
-                     case 2:
-                        new_role = "manager";
-                        break;
-                     case 3:
-                        new_role = "driver";
-                        break;
-                     default:
-                        System.out.println("Invalid choice. Please select a valid role.");
-                        break;
-                  }
-                  if(new_role.equals("")) {
-                     break;
-                  }
-                  String update_role_query = String.format("UPDATE Users SET role = '%s' WHERE login = '%s'", new_role, update_login);
-                  esql.executeUpdate(update_role_query);
-                  System.out.println("User role updated successfully. New profile:");
-                  printProfileHelper(esql, update_login);
-                  break;
-               case 9: 
-                  update_menu = false;
-                  break;
-               default : System.out.println("Unrecognized choice!"); break;
-            }
-         }
-
-         return;
-
-      }catch(Exception e) {
-         System.err.println("An error occured when while updating a user: " + e.getMessage());
-      }
-   }//end updateUser
-
-
-}//end PizzaStore
-
+/*
+ * Template JAVA User Interface
+ * =============================
+ *
+ * Database Management Systems
+ * Department of Computer Science &amp; Engineering
+ * University of California - Riverside
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.DriverManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import at.favre.lib.crypto.bcrypt.LongPasswordStrategies;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.lang.Math;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * This class defines a simple embedded SQL utility class that is designed to
+ * work with PostgreSQL JDBC drivers.
+ *
+ */
+public class PizzaStore {
+
+   // reference to physical database connection.
+   private Connection _connection = null;
+
+   // maximum number of prepared statements kept open on the connection
+   static final int STATEMENT_CACHE_SIZE = 32;
+
+   // prepared statements of the connection, keyed by SQL template
+   private StatementCache _statementCache = null;
+
+   // in server mode, the pool connections are borrowed from and the connection currently borrowed
+   private ConnectionPool _pool = null;
+   private ConnectionPool.PooledConnection _pooled = null;
+   // true while a transaction holds a connection that beginTransaction borrowed
+   private boolean _transactionBorrowed = false;
+
+   // Field to store the currently logged in user.
+   private String currentUser;
+
+   // number of rows fetched per round trip by executeQueryAndStream
+   static final int FETCH_SIZE = 100;
+
+   // number of orders fetched per page when browsing order history
+   static final int ORDER_PAGE_SIZE = 10;
+
+   // number of stores fetched per page by the store search
+   static final int STORE_PAGE_SIZE = 10;
+
+   // number of items per page of the item listings of updateMenu
+   static final int ITEM_PAGE_SIZE = 20;
+
+   // number of orders shown by viewRecentOrders
+   static final int RECENT_ORDER_COUNT = 5;
+
+   // number of orders per page of the open-order queue of viewOpenOrders, oldest first
+   static final int OPEN_ORDER_PAGE_SIZE = 20;
+
+   // days shown by the sales dashboard when the manager does not choose
+   static final int SALES_DAYS = 7;
+
+   // number of items and stores in the top lists of the sales dashboard
+   static final int SALES_TOP_COUNT = 10;
+
+   // months after the current one whose FoodOrder and ItemsInOrder partitions are created ahead of time
+   static final int PARTITION_MONTHS_AHEAD = 3;
+
+   // an orderTimestamp before every order, the first key of listings in (orderTimestamp, orderID) order
+   static final Timestamp FIRST_ORDER_TIMESTAMP = Timestamp.valueOf("1900-01-01 00:00:00");
+
+   // the values of the order_status type of create_tables.sql, in the order an order goes through them
+   static final String[] ORDER_STATUSES = { "placed", "preparing", "out for delivery", "complete" };
+
+   // driver settings, overridden with -Dpizzastore.jdbc.<name>=<value> (see connectionProperties)
+   static final String[][] DRIVER_DEFAULTS = {
+      // statements are cached per connection, so prepare them on the server from the first execution
+      { "prepareThreshold", "1" },
+      // send the batches of executeBatch as multi-row INSERTs
+      { "reWriteBatchedInserts", "true" },
+      // receive numbers and timestamps in binary instead of text
+      { "binaryTransfer", "true" },
+   };
+
+   // sequence that hands out blocks of orderIDs (see create_tables.sql)
+   static final String ORDER_ID_SEQUENCE = "FoodOrder_orderID_seq";
+
+   // must match the INCREMENT BY of ORDER_ID_SEQUENCE
+   static final int ORDER_ID_BLOCK_SIZE = 50;
+
+   // next unused orderID of the block reserved by this process, and the end (exclusive) of that block
+   private static int nextOrderID = 0;
+   private static int orderIDBlockEnd = 0;
+
+   // the Items table as last read by getMenu, or null when it has to be read again
+   private static volatile List<MenuItem> menuCache = null;
+
+   // incremented by every invalidateMenuCache, so a menu read before a change is not cached
+   private static final AtomicLong menuCacheVersion = new AtomicLong();
+
+   // channel a change to the Items table is announced on, so other processes drop their cached menu
+   static final String MENU_CHANNEL = "pizzastore_menu";
+
+   // the connection that LISTENs on MENU_CHANNEL, opened by the first getMenu, or null when there is none
+   private static Connection menuListener = null;
+   private static final ReentrantLock menuListenerLock = new ReentrantLock();
+
+   // how often, at most, getMenu checks the listener for changes made by other processes
+   // (-Dpizzastore.menu.checkMillis); a check waits up to a millisecond on the socket
+   static final long MENU_CHECK_MILLIS = Long.getLong("pizzastore.menu.checkMillis", 1000);
+
+   // System.nanoTime of the last check of the listener
+   private static volatile long menuCheckedAt = System.nanoTime();
+
+   // guards nextOrderID and orderIDBlockEnd. A lock rather than synchronized, so a
+   // session on a virtual thread does not pin its carrier while a block is reserved
+   private static final ReentrantLock orderIDLock = new ReentrantLock();
+
+   // statements slower than this many milliseconds go to the slow-query log
+   // (-Dpizzastore.slowQuery.millis, a negative value turns the log off)
+   static final long SLOW_QUERY_MILLIS = Long.getLong("pizzastore.slowQuery.millis", 500);
+
+   // file pattern of the slow-query log, see java.util.logging.FileHandler
+   // (-Dpizzastore.slowQuery.log); rotated over SLOW_QUERY_LOG_COUNT files of SLOW_QUERY_LOG_LIMIT bytes
+   static final String SLOW_QUERY_LOG = System.getProperty("pizzastore.slowQuery.log", "slow-queries.%g.log");
+   static final int SLOW_QUERY_LOG_LIMIT = 10 * 1024 * 1024;
+   static final int SLOW_QUERY_LOG_COUNT = 5;
+
+   // the plan of a template is captured at most once per this many milliseconds,
+   // so a slow query is not run a second time on every call
+   static final long SLOW_QUERY_PLAN_INTERVAL_MILLIS = 60000;
+
+   // when the plan of each slow template was last captured
+   private static final ConcurrentHashMap<String, Long> slowQueryPlanMillis = new ConcurrentHashMap<>();
+
+   // latency of the database calls, menu actions and server requests of all sessions. A menu
+   // action is timed by its database calls in ACTIONS and from start to end in ACTION_WALL_TIMES,
+   // which includes the time the user took to answer its prompts
+   static final Metrics QUERIES = new Metrics("SQL template");
+   static final Metrics ACTIONS = new Metrics("menu action (database time)");
+   static final Metrics ACTION_WALL_TIMES = new Metrics("menu action (wall time, with user input)");
+   static final Metrics REQUESTS = new Metrics("request");
+
+   // database calls of this session that failed, and the time they took and
+   // rows and bytes they returned, so runAction can attribute them to the
+   // menu action running
+   private long callErrors = 0;
+   private long callNanos = 0;
+   private long callRows = 0;
+   private long callBytes = 0;
+
+   // the terminal of the session: the keyboard input is read from in and the
+   // screens are printed to out. Set with setTerminal before runTerminal.
+   BufferedReader in;
+   PrintStream out;
+
+   /**
+    * Creates a new instance of PizzaStore
+    *
+    * @param hostname the MySQL or PostgreSQL server hostname
+    * @param database the name of the database
+    * @param username the user name used to login to the database
+    * @param password the user login password
+    * @throws java.sql.SQLException when failed to make a connection.
+    */
+   public PizzaStore(String dbname, String dbport, String user, String passwd) throws SQLException {
+
+      System.out.print("Connecting to database...");
+      try{
+         // constructs the connection URL
+         String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
+         System.out.println ("Connection URL: " + url + "\n");
+
+         // obtain a physical connection
+         this._connection = DriverManager.getConnection(url, connectionProperties(user, passwd));
+         this._statementCache = new StatementCache(this._connection, STATEMENT_CACHE_SIZE);
+         System.out.println("Done");
+      }catch (Exception e){
+         System.err.println("Error - Unable to Connect to Database: " + e.getMessage() );
+         System.out.println("Make sure you started postgres on this machine");
+         System.exit(-1);
+      }//end catch
+   }//end PizzaStore
+
+   /**
+    * Returns the properties connections are opened with: the login and the
+    * driver settings of DRIVER_DEFAULTS, each of which can be overridden
+    * with the system property pizzastore.jdbc.<name>.
+    *
+    * @param user the user name used to login to the database
+    * @param passwd the user login password
+    * @return the connection properties
+    */
+   static Properties connectionProperties(String user, String passwd) {
+      Properties props = new Properties();
+      props.setProperty("user", user);
+      props.setProperty("password", passwd);
+      for (String[] setting : DRIVER_DEFAULTS) {
+         props.setProperty(setting[0], System.getProperty("pizzastore.jdbc." + setting[0], setting[1]));
+      }
+      return props;
+   }
+
+   /**
+    * Creates a new session of the server mode. The session has no connection
+    * of its own; it borrows one from the pool around each request with
+    * acquireConnection and releaseConnection.
+    *
+    * @param pool the pool connections are borrowed from
+    */
+   public PizzaStore(ConnectionPool pool) {
+      this._pool = pool;
+   }//end PizzaStore
+
+   /**
+    * Cache of prepared statements for a single connection, keyed by the SQL
+    * template. Statements are evicted (and closed) in least recently used
+    * order once more than the configured number of templates are cached.
+    * Hits and misses are counted over the caches of all connections of the
+    * process and reported by reportMetrics.
+    */
+   static class StatementCache {
+
+      // executions served by an already prepared statement, and executions that prepared one
+      static final LongAdder HITS = new LongAdder();
+      static final LongAdder MISSES = new LongAdder();
+
+      private final Connection connection;
+      private final Map<String, PreparedStatement> statements;
+
+      StatementCache(Connection connection, final int capacity) {
+         this.connection = connection;
+         this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+               if (size() <= capacity) {
+                  return false;
+               }
+               try {
+                  eldest.getValue().close();
+               }catch (SQLException e) {
+                  // ignored.
+               }
+               return true;
+            }
+         };
+      }
+
+      /**
+       * Returns the prepared statement for the given SQL template, preparing
+       * it on the connection the first time the template is seen.
+       */
+      PreparedStatement prepare(String sql) throws SQLException {
+         PreparedStatement stmt = statements.get(sql);
+         if (stmt != null) {
+            HITS.increment();
+            return stmt;
+         }
+         MISSES.increment();
+         stmt = connection.prepareStatement(sql);
+         statements.put(sql, stmt);
+         return stmt;
+      }
+
+      /**
+       * Closes every cached statement.
+       */
+      void close() {
+         for (PreparedStatement stmt : statements.values()) {
+            try {
+               stmt.close();
+            }catch (SQLException e) {
+               // ignored.
+            }
+         }
+         statements.clear();
+      }
+   }//end StatementCache
+
+   /**
+    * Latency, rows, bytes and errors of a kind of operation (database calls,
+    * menu actions or server requests), per SQL template or name, summed over
+    * all sessions of the process. Latencies go into an HdrHistogram per name,
+    * so percentiles are exact to three significant digits at a fixed cost per
+    * call. The reports are printed by the load test and, when the system
+    * property pizzastore.metrics.port is set, served as text on
+    * http://localhost:<port>/metrics (see serveMetrics).
+    */
+   static class Metrics {
+
+      // most names tracked, so queries built with literals cannot fill the heap;
+      // the calls of any further name are counted under OTHER
+      static final int MAX_NAMES = 500;
+      static final String OTHER = "(other)";
+
+      static class Stats {
+         // nanoseconds
+         final ConcurrentHistogram latency = new ConcurrentHistogram(3);
+         final LongAdder totalNanos = new LongAdder();
+         final LongAdder rows = new LongAdder();
+         final LongAdder bytes = new LongAdder();
+         final LongAdder errors = new LongAdder();
+      }
+
+      private final String kind;
+      private final ConcurrentHashMap<String, Stats> byName = new ConcurrentHashMap<>();
+
+      Metrics(String kind) {
+         this.kind = kind;
+      }
+
+      /**
+       * Records one call.
+       *
+       * @param name the SQL template or name of the call
+       * @param startNanos System.nanoTime() when the call started
+       * @param rows rows returned or affected
+       * @param bytes characters of the values materialized
+       * @param failed whether the call failed
+       */
+      void record(String name, long startNanos, long rows, long bytes, boolean failed) {
+         recordNanos(name, System.nanoTime() - startNanos, rows, bytes, failed);
+      }
+
+      /**
+       * Records one call that took the given time.
+       *
+       * @param name the SQL template or name of the call
+       * @param nanos the time the call took
+       * @param rows rows returned or affected
+       * @param bytes characters of the values materialized
+       * @param failed whether the call failed
+       */
+      void recordNanos(String name, long nanos, long rows, long bytes, boolean failed) {
+         Stats stats = byName.get(name);
+         if (stats == null) {
+            stats = byName.computeIfAbsent(byName.size() < MAX_NAMES ? name : OTHER, n -> new Stats());
+         }
+         stats.latency.recordValue(nanos);
+         stats.totalNanos.add(nanos);
+         stats.rows.add(rows);
+         stats.bytes.add(bytes);
+         if (failed) {
+            stats.errors.increment();
+         }
+      }
+
+      /**
+       * Prints a line per name, the most total time first: calls, errors,
+       * rows, bytes, total milliseconds and latency percentiles in microseconds.
+       */
+      void report(PrintStream out) {
+         List<Map.Entry<String, Stats>> entries = new ArrayList<>(byName.entrySet());
+         entries.sort(Comparator.comparingLong((Map.Entry<String, Stats> e) -> e.getValue().totalNanos.sum()).reversed());
+         out.printf("%9s %7s %10s %12s %10s %9s %9s %9s %9s %9s  %s\n",
+            "calls", "errors", "rows", "bytes", "total ms", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", kind);
+         for (Map.Entry<String, Stats> entry : entries) {
+            Stats stats = entry.getValue();
+            Histogram latency = stats.latency.copy();
+            out.printf("%9d %7d %10d %12d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f  %s\n",
+               latency.getTotalCount(), stats.errors.sum(), stats.rows.sum(), stats.bytes.sum(), stats.totalNanos.sum() / 1e6,
+               latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(90) / 1e3,
+               latency.getValueAtPercentile(99) / 1e3, latency.getValueAtPercentile(99.9) / 1e3,
+               latency.getMaxValue() / 1e3, entry.getKey());
+         }
+      }
+   }//end Metrics
+
+   // prints the hits of the statement caches and the reports of QUERIES, ACTIONS, ACTION_WALL_TIMES and REQUESTS
+   static void reportMetrics(PrintStream out) {
+      long hits = StatementCache.HITS.sum();
+      long misses = StatementCache.MISSES.sum();
+      out.printf("statement cache: %d hits, %d misses (%.1f%% hits)\n\n",
+         hits, misses, hits + misses == 0 ? 0.0 : 100.0 * hits / (hits + misses));
+      for (Metrics metrics : new Metrics[] { QUERIES, ACTIONS, ACTION_WALL_TIMES, REQUESTS }) {
+         metrics.report(out);
+         out.println();
+      }
+   }
+
+   /**
+    * Serves reportMetrics on http://localhost:<port>/metrics, bound to the
+    * loopback interface only.
+    *
+    * @return the server, to stop when the program ends
+    * @throws java.io.IOException when the port could not be bound
+    */
+   static HttpServer serveMetrics(int port) throws IOException {
+      HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      server.createContext("/metrics", exchange -> {
+         ByteArrayOutputStream body = new ByteArrayOutputStream();
+         reportMetrics(new PrintStream(body, true, "UTF-8"));
+         exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+         exchange.sendResponseHeaders(200, body.size());
+         try (OutputStream out = exchange.getResponseBody()) {
+            body.writeTo(out);
+         }
+      });
+      server.start();
+      return server;
+   }
+
+   // records a database call of this session in QUERIES, in the counters of the session
+   // and, when it took longer than SLOW_QUERY_MILLIS, in the slow-query log
+   private void recordCall(String sql, Object[] params, long startNanos, long rows, long bytes, boolean failed) {
+      long nanos = System.nanoTime() - startNanos;
+      QUERIES.recordNanos(sql, nanos, rows, bytes, failed);
+      callNanos += nanos;
+      callRows += rows;
+      callBytes += bytes;
+      if (failed) {
+         ++callErrors;
+      }
+      if (SLOW_QUERY_MILLIS >= 0 && nanos >= SLOW_QUERY_MILLIS * 1000000L) {
+         logSlowQuery(sql, params, nanos, rows, failed);
+      }
+   }
+
+   /**
+    * The slow-query log, opened on the first slow query so that no file is
+    * created by a run without one.
+    */
+   private static final class SlowQueryLog {
+      static final Logger LOGGER = open();
+
+      private static Logger open() {
+         Logger logger = Logger.getLogger("pizzastore.slowQuery");
+         logger.setUseParentHandlers(false);
+         try {
+            FileHandler handler = new FileHandler(SLOW_QUERY_LOG, SLOW_QUERY_LOG_LIMIT, SLOW_QUERY_LOG_COUNT, true);
+            handler.setFormatter(new Formatter() {
+               public String format(LogRecord record) {
+                  return String.format("%1$tF %1$tT.%1$tL %2$s%n%n", record.getMillis(), record.getMessage());
+               }
+            });
+            logger.addHandler(handler);
+         }catch (IOException e) {
+            System.err.println("Unable to open the slow-query log " + SLOW_QUERY_LOG + ": " + e.getMessage());
+         }
+         return logger;
+      }
+   }//end SlowQueryLog
+
+   /**
+    * Writes a statement to the slow-query log with its template, parameters,
+    * duration and plan. Neither the parameters nor the plan, which shows
+    * them as constants, are written for statements about passwords. The
+    * plan is captured by running the statement again under
+    * EXPLAIN (ANALYZE, BUFFERS) when it is a SELECT without FOR UPDATE, and
+    * with EXPLAIN alone otherwise. Failed statements and templates whose
+    * plan was captured less than SLOW_QUERY_PLAN_INTERVAL_MILLIS ago are
+    * logged without a plan.
+    */
+   private void logSlowQuery(String sql, Object[] params, long nanos, long rows, boolean failed) {
+      StringBuilder entry = new StringBuilder();
+      entry.append(String.format("slow query: %.1f ms, %s", nanos / 1e6, failed ? "failed" : rows + " rows"));
+      entry.append("\n  sql: ").append(sql);
+      boolean secret = sql.toLowerCase().contains("password");
+      entry.append("\n  params: ").append(secret ? "(not logged)" : Arrays.deepToString(params));
+      if (!failed && !secret && takePlanTurn(sql)) {
+         entry.append(capturePlan(sql, params));
+      }
+      SlowQueryLog.LOGGER.info(entry.toString());
+   }
+
+   // whether the plan of the template is due to be captured again, and if so marks it captured now
+   private static boolean takePlanTurn(String sql) {
+      long now = System.currentTimeMillis();
+      Long last = slowQueryPlanMillis.get(sql);
+      if (last == null) {
+         return slowQueryPlanMillis.putIfAbsent(sql, now) == null;
+      }
+      return now - last >= SLOW_QUERY_PLAN_INTERVAL_MILLIS && slowQueryPlanMillis.replace(sql, last, now);
+   }
+
+   /**
+    * Returns the plan of a statement with its parameters, as lines to append
+    * to a slow-query log entry. A SELECT can still have side effects through
+    * the functions it calls, like SELECT refresh_sales_rollups(), so the
+    * EXPLAIN runs in a transaction that is always rolled back, or in a
+    * savepoint of the caller's transaction. A sequence is not rolled back,
+    * so a statement calling nextval is only explained.
+    */
+   private String capturePlan(String sql, Object[] params) {
+      String statement = sql.trim().toUpperCase();
+      boolean analyze = statement.startsWith("SELECT") && !statement.contains("FOR UPDATE") && !statement.contains("NEXTVAL");
+      String explain = analyze ? "EXPLAIN (ANALYZE, BUFFERS)" : "EXPLAIN";
+      try {
+         boolean autoCommit = this._connection.getAutoCommit();
+         Savepoint savepoint = null;
+         if (autoCommit) {
+            this._connection.setAutoCommit(false);
+         } else {
+            savepoint = this._connection.setSavepoint();
+         }
+         StringBuilder plan = new StringBuilder("\n  plan (" + explain + "):");
+         try (PreparedStatement stmt = this._connection.prepareStatement(explain + " " + sql)) {
+            bind(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+               while (rs.next()) {
+                  plan.append("\n    ").append(rs.getString(1));
+               }
+            }
+         } finally {
+            // undo whatever the statement did, without touching the caller's work
+            if (autoCommit) {
+               this._connection.rollback();
+               this._connection.setAutoCommit(true);
+            } else {
+               this._connection.rollback(savepoint);
+               this._connection.releaseSavepoint(savepoint);
+            }
+         }
+         return plan.toString();
+      }catch (SQLException e) {
+         return "\n  plan unavailable: " + e.getMessage();
+      }
+   }
+
+   /**
+    * Returns the cached prepared statement for the given SQL template with
+    * the parameters bound to its placeholders in order.
+    *
+    * @param sql the SQL template using ? placeholders
+    * @param params the values to bind to the placeholders
+    * @return the prepared statement ready to execute
+    * @throws java.sql.SQLException when the statement could not be prepared
+    */
+   private PreparedStatement prepare(String sql, Object... params) throws SQLException {
+      PreparedStatement stmt = this._statementCache.prepare(sql);
+      bind(stmt, params);
+      return stmt;
+   }
+
+   // binds the parameters to the placeholders of the statement in order
+   private static void bind(PreparedStatement stmt, Object... params) throws SQLException {
+      stmt.clearParameters();
+      for (int i = 0; i < params.length; ++i) {
+         stmt.setObject(i + 1, params[i]);
+      }
+   }
+
+   /**
+    * A bounded pool of physical connections shared by the sessions of the
+    * server mode. Idle connections are reused most recently used first, are
+    * checked with a trivial query before reuse once they have been idle for
+    * a while, and are closed once they have been idle for longer than the
+    * idle timeout.
+    */
+   static class ConnectionPool {
+
+      // idle connections older than this are validated before being handed out
+      static final long VALIDATION_INTERVAL_MILLIS = 30000;
+
+      /**
+       * A physical connection of the pool together with its prepared statements.
+       */
+      static class PooledConnection {
+         final Connection connection;
+         final StatementCache statements;
+         long lastUsed;
+
+         PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statements = new StatementCache(connection, STATEMENT_CACHE_SIZE);
+            this.lastUsed = System.currentTimeMillis();
+         }
+
+         void close() {
+            statements.close();
+            try {
+               connection.close();
+            }catch (SQLException e) {
+               // ignored.
+            }
+         }
+      }
+
+      private final String url;
+      private final String user;
+      private final String passwd;
+      private final long borrowTimeoutMillis;
+      private final long idleTimeoutMillis;
+
+      // one permit per connection that may be handed out
+      private final Semaphore permits;
+
+      // idle connections, most recently used first
+      private final Deque<PooledConnection> idle = new ArrayDeque<>();
+
+      private final ScheduledExecutorService evictor;
+      private boolean closed = false;
+
+      ConnectionPool(String url, String user, String passwd, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis) {
+         this.url = url;
+         this.user = user;
+         this.passwd = passwd;
+         this.borrowTimeoutMillis = borrowTimeoutMillis;
+         this.idleTimeoutMillis = idleTimeoutMillis;
+         this.permits = new Semaphore(maxSize, true);
+         this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+         });
+         long period = Math.max(1000, idleTimeoutMillis / 2);
+         this.evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+      }
+
+      /**
+       * Hands out a healthy connection, opening a new one if none is idle.
+       *
+       * @return a connection that must be given back with release
+       * @throws java.sql.SQLException when no connection became available in time or one could not be opened
+       */
+      PooledConnection borrow() throws SQLException {
+         try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+               throw new SQLException("Timed out waiting for a database connection");
+            }
+         }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+         }
+         try {
+            PooledConnection pooled;
+            while ((pooled = pollIdle()) != null) {
+               if (isHealthy(pooled)) {
+                  return pooled;
+               }
+               pooled.close();
+            }
+            return new PooledConnection(open());
+         }catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+         }
+      }
+
+      /**
+       * Opens a connection to the database of the pool that is not part of
+       * the pool and does not count towards its size.
+       *
+       * @return the new connection, to be closed by the caller
+       * @throws java.sql.SQLException when the connection could not be opened
+       */
+      Connection open() throws SQLException {
+         return DriverManager.getConnection(url, connectionProperties(user, passwd));
+      }
+
+      /**
+       * Gives a borrowed connection back to the pool. A transaction left open
+       * is rolled back; a broken connection is closed instead of reused.
+       */
+      void release(PooledConnection pooled) {
+         try {
+            if (!pooled.connection.getAutoCommit()) {
+               pooled.connection.rollback();
+               pooled.connection.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+            synchronized (this) {
+               if (!closed) {
+                  idle.offerFirst(pooled);
+                  pooled = null;
+               }
+            }
+         }catch (SQLException e) {
+            // broken connection, dropped below.
+         }finally {
+            if (pooled != null) {
+               pooled.close();
+            }
+            permits.release();
+         }
+      }
+
+      private synchronized PooledConnection pollIdle() {
+         return idle.pollFirst();
+      }
+
+      private boolean isHealthy(PooledConnection pooled) {
+         if (System.currentTimeMillis() - pooled.lastUsed < VALIDATION_INTERVAL_MILLIS) {
+            return true;
+         }
+         try {
+            pooled.statements.prepare("SELECT 1").executeQuery().close();
+            return true;
+         }catch (SQLException e) {
+            return false;
+         }
+      }
+
+      /**
+       * Closes the connections that have been idle for longer than the idle timeout.
+       */
+      synchronized void evictIdle() {
+         long now = System.currentTimeMillis();
+         while (!idle.isEmpty() && now - idle.peekLast().lastUsed > idleTimeoutMillis) {
+            idle.pollLast().close();
+         }
+      }
+
+      /**
+       * Closes every idle connection; connections still borrowed are closed when released.
+       */
+      synchronized void close() {
+         closed = true;
+         evictor.shutdownNow();
+         while (!idle.isEmpty()) {
+            idle.pollFirst().close();
+         }
+      }
+   }//end ConnectionPool
+
+   /**
+    * Binds this session to a connection borrowed from its pool. Every
+    * acquireConnection must be followed by a releaseConnection.
+    *
+    * @throws java.sql.SQLException when no connection could be borrowed
+    */
+   public void acquireConnection() throws SQLException {
+      this._pooled = this._pool.borrow();
+      this._connection = this._pooled.connection;
+      this._statementCache = this._pooled.statements;
+   }
+
+   /**
+    * Gives the connection bound by acquireConnection back to the pool.
+    */
+   public void releaseConnection() {
+      if (this._pooled != null) {
+         this._pool.release(this._pooled);
+         this._pooled = null;
+         this._connection = null;
+         this._statementCache = null;
+      }
+   }
+
+   /**
+    * Binds a connection for a single data access call of a pooled session
+    * that has none, so a terminal session only holds a connection while one
+    * of its statements runs and not while it waits for the user.
+    *
+    * @return true if a connection was bound and has to be given back with releaseIfBorrowed
+    * @throws java.sql.SQLException when no connection could be borrowed
+    */
+   private boolean borrowIfUnbound() throws SQLException {
+      if (this._pool == null || this._pooled != null) {
+         return false;
+      }
+      acquireConnection();
+      return true;
+   }
+
+   private void releaseIfBorrowed(boolean borrowed) {
+      if (borrowed) {
+         releaseConnection();
+      }
+   }
+
+   /**
+    * Method to execute an update SQL statement.  Update SQL instructions
+    * includes CREATE, INSERT, UPDATE, DELETE, and DROP.
+    *
+    * @param sql the input SQL template using ? placeholders
+    * @param params the values to bind to the placeholders
+    * @return the number of rows affected
+    * @throws java.sql.SQLException when update failed
+    */
+   public int executeUpdate (String sql, Object... params) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      long start = System.nanoTime();
+      try {
+         // issues the update instruction on the cached statement
+         int rowCount = prepare(sql, params).executeUpdate ();
+         recordCall(sql, params, start, rowCount, 0, false);
+         return rowCount;
+      }catch (SQLException e) {
+         recordCall(sql, params, start, 0, 0, true);
+         throw e;
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }//end executeUpdate
+
+   /**
+    * Method to execute an update SQL statement once for every set of
+    * parameters, sending all of them to the DBMS in a single batch.
+    *
+    * @param sql the input SQL template using ? placeholders
+    * @param paramSets the values to bind to the placeholders, one array per execution
+    * @return the number of rows affected by each execution
+    * @throws java.sql.SQLException when update failed
+    */
+   public int[] executeBatch (String sql, List<Object[]> paramSets) throws SQLException {
+      // the slow-query log shows the parameters of the first execution
+      Object[] first = paramSets.isEmpty() ? new Object[0] : paramSets.get(0);
+      boolean borrowed = borrowIfUnbound();
+      long start = System.nanoTime();
+      try {
+         PreparedStatement stmt = this._statementCache.prepare(sql);
+         for (Object[] params : paramSets) {
+            bind(stmt, params);
+            stmt.addBatch();
+         }
+         int[] counts = stmt.executeBatch();
+         // rewritten batches do not report counts, so count the rows sent
+         recordCall(sql, first, start, paramSets.size(), 0, false);
+         return counts;
+      }catch (SQLException e) {
+         recordCall(sql, first, start, 0, 0, true);
+         throw e;
+      }finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }//end executeBatch
+
+   /**
+    * Starts a transaction. Statements run until commitTransaction or
+    * rollbackTransaction is called are committed or discarded together.
+    * A pooled session with no connection bound borrows one here and keeps
+    * it until the transaction ends, so every statement of the transaction
+    * runs on the same connection.
+    *
+    * @throws java.sql.SQLException when no connection could be borrowed or
+    *         autocommit could not be turned off
+    */
+   public void beginTransaction() throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      try {
+         this._connection.setAutoCommit(false);
+         this._transactionBorrowed = borrowed;
+      }catch (SQLException e) {
+         releaseIfBorrowed(borrowed);
+         throw e;
+      }
+   }
+
+   /**
+    * Commits the current transaction and returns to autocommit mode,
+    * giving back the connection beginTransaction borrowed, if any.
+    *
+    * @throws java.sql.SQLException when the commit failed; the transaction
+    *         is rolled back
+    */
+   public void commitTransaction() throws SQLException {
+      try {
+         this._connection.commit();
+         this._connection.setAutoCommit(true);
+      }catch (SQLException e) {
+         rollbackTransaction();
+         throw e;
+      }
+      endTransaction();
+   }
+
+   /**
+    * Discards the current transaction and returns to autocommit mode,
+    * giving back the connection beginTransaction borrowed, if any.
+    */
+   public void rollbackTransaction() {
+      try {
+         if (this._connection != null) {
+            this._connection.rollback();
+            this._connection.setAutoCommit(true);
+         }
+      }catch (SQLException e) {
+         // ignored; the pool rolls back a connection that is still in a transaction.
+      }finally {
+         endTransaction();
+      }
+   }
+
+   private void endTransaction() {
+      boolean borrowed = this._transactionBorrowed;
+      this._transactionBorrowed = false;
+      releaseIfBorrowed(borrowed);
+   }
+
+   /**
+    * Method to execute an input query SQL instruction (i.e. SELECT).  This
+    * method issues the query to the DBMS and returns the results as
+    * a list of records. Each record in turn is a list of attribute values
+    *
+    * @param query the input query template using ? placeholders
+    * @param params the values to bind to the placeholders
+    * @return the query result as a list of records
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> executeQueryAndReturnResult (String query, Object... params) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      long start = System.nanoTime();
+      try {
+         // issues the query instruction
+         ResultSet rs = prepare(query, params).executeQuery ();
+
+         /*
+          ** obtains the metadata object for the returned result set.  The metadata
+          ** contains row and column info.
+          */
+         ResultSetMetaData rsmd = rs.getMetaData ();
+         int numCol = rsmd.getColumnCount ();
+
+         // iterates through the result set and saves the data returned by the query.
+         List<List<String>> result  = new ArrayList<List<String>>();
+         long bytes = 0;
+         while (rs.next()){
+           List<String> record = new ArrayList<String>();
+   		for (int i=1; i<=numCol; ++i) {
+   			String value = rs.getString (i);
+   			bytes += value == null ? 0 : value.length();
+   			record.add(value);
+   		}
+           result.add(record);
+         }//end while
+         rs.close ();
+         recordCall(query, params, start, result.size(), bytes, false);
+         return result;
+      }catch (SQLException e) {
+         recordCall(query, params, start, 0, 0, true);
+         throw e;
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }//end executeQueryAndReturnResult
+
+   /**
+    * Callback receiving the rows of a query run by executeQueryAndStream.
+    */
+   interface RowHandler {
+      void handle(ResultSet rs) throws SQLException;
+   }
+
+   /**
+    * Method to execute an input query SQL instruction (i.e. SELECT).  This
+    * method issues the query to the DBMS and hands each row to the handler
+    * as it arrives. Rows are fetched FETCH_SIZE at a time through a cursor,
+    * so memory use does not grow with the number of rows returned. The
+    * statement comes from the statement cache, so its fetch size is reset
+    * afterwards for the other callers of the same query.
+    *
+    * @param query the input query template using ? placeholders
+    * @param handler called once per row, with the result set positioned on it
+    * @param params the values to bind to the placeholders
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int executeQueryAndStream (String query, RowHandler handler, Object... params) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      long start = System.nanoTime();
+      try {
+         // the driver only fetches in batches inside a transaction
+         boolean autoCommit = this._connection.getAutoCommit();
+         if (autoCommit) {
+            this._connection.setAutoCommit(false);
+         }
+         int rowCount = 0;
+         try {
+            PreparedStatement stmt = prepare(query, params);
+            stmt.setFetchSize(FETCH_SIZE);
+            try {
+               ResultSet rs = stmt.executeQuery ();
+               try {
+                  while (rs.next()) {
+                     handler.handle(rs);
+                     ++rowCount;
+                  }
+               } finally {
+                  rs.close();
+               }
+            } finally {
+               stmt.setFetchSize(0);
+            }
+         } finally {
+            if (autoCommit) {
+               this._connection.setAutoCommit(true);
+            }
+         }
+         // the handler reads the values, so no bytes are counted here
+         recordCall(query, params, start, rowCount, 0, false);
+         return rowCount;
+      }catch (SQLException e) {
+         recordCall(query, params, start, 0, 0, true);
+         throw e;
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }//end executeQueryAndStream
+
+   /**
+    * Method to check whether a query returns any row. Only the first row is
+    * fetched, so the query should be a probe of the form SELECT 1 ... LIMIT 1.
+    *
+    * @param query the input query template using ? placeholders
+    * @param params the values to bind to the placeholders
+    * @return true if the query returned at least one row
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public boolean executeExists (String query, Object... params) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      long start = System.nanoTime();
+      try {
+         ResultSet rs = prepare(query, params).executeQuery ();
+         try {
+            boolean exists = rs.next();
+            recordCall(query, params, start, exists ? 1 : 0, 0, false);
+            return exists;
+         } finally {
+            rs.close();
+         }
+      }catch (SQLException e) {
+         recordCall(query, params, start, 0, 0, true);
+         throw e;
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }//end executeExists
+
+   /**
+    * Method to execute an input query SQL instruction (i.e. SELECT).  This
+    * method issues the query to the DBMS and returns the number of results
+    *
+    * @param query the input query template using ? placeholders
+    * @param params the values to bind to the placeholders
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int executeQuery (String query, Object... params) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      long start = System.nanoTime();
+      try {
+          // issues the query instruction
+          ResultSet rs = prepare(query, params).executeQuery ();
+
+          int rowCount = 0;
+
+          // iterates through the result set and count nuber of results.
+          while (rs.next()){
+             rowCount++;
+          }//end while
+          rs.close ();
+          recordCall(query, params, start, rowCount, 0, false);
+          return rowCount;
+      }catch (SQLException e) {
+         recordCall(query, params, start, 0, 0, true);
+         throw e;
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }
+
+   /**
+    * Method to fetch the last value from sequence. This
+    * method issues the query to the DBMS and returns the current
+    * value of sequence used for autogenerated keys
+    *
+    * @param sequence name of the DB sequence
+    * @return current value of a sequence
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int getCurrSeqVal(String sequence) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      try {
+   	ResultSet rs = prepare("SELECT currval(?::regclass)", sequence).executeQuery ();
+   	try {
+   		if (rs.next())
+   			return rs.getInt(1);
+   		return -1;
+   	} finally {
+   		rs.close();
+   	}
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }
+
+   /**
+    * Method to advance a sequence and fetch its new value.
+    *
+    * @param sequence name of the DB sequence
+    * @return next value of the sequence
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int getNextSeqVal(String sequence) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      try {
+         ResultSet rs = prepare("SELECT nextval(?::regclass)", sequence).executeQuery ();
+         try {
+            rs.next();
+            return rs.getInt(1);
+         } finally {
+            rs.close();
+         }
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }
+
+   /**
+    * Allocates a new orderID. Each call to nextval on ORDER_ID_SEQUENCE reserves
+    * a block of ORDER_ID_BLOCK_SIZE ids which are handed out locally, so only
+    * one order in ORDER_ID_BLOCK_SIZE needs a round trip to the server.
+    *
+    * @return an orderID no other terminal will use
+    * @throws java.sql.SQLException when a new block could not be reserved
+    */
+   public int allocateOrderID() throws SQLException {
+      orderIDLock.lock();
+      try {
+         if (nextOrderID >= orderIDBlockEnd) {
+            nextOrderID = getNextSeqVal(ORDER_ID_SEQUENCE);
+            orderIDBlockEnd = nextOrderID + ORDER_ID_BLOCK_SIZE;
+         }
+         return nextOrderID++;
+      } finally {
+         orderIDLock.unlock();
+      }
+   }
+
+   /**
+    * The orderID and total price of an order inserted by insertOrder.
+    */
+   static class PlacedOrder {
+      final int orderID;
+      final BigDecimal totalPrice;
+
+      PlacedOrder(int orderID, BigDecimal totalPrice) {
+         this.orderID = orderID;
+         this.totalPrice = totalPrice;
+      }
+   }
+
+   /**
+    * Inserts an order of the current user and all of its items with a single
+    * statement, which commits or fails as a whole. The items are a VALUES
+    * list that one data-modifying WITH query prices against the Items table
+    * and inserts into FoodOrder, and the other inserts into ItemsInOrder
+    * with the orderTimestamp the order got. So an order costs one round trip
+    * and one commit, whatever its number of items. An explicit transaction
+    * around an order insert and a batch of items costs two more round trips
+    * (the batch and the COMMIT), which made a one-item order slower than
+    * inserting the items one by one (PlaceOrderBenchmark compares the three).
+    *
+    * @param storeID the store the order is placed at
+    * @param items the quantity ordered of each itemName
+    * @return the orderID and total price of the new order
+    * @throws java.sql.SQLException when the order could not be inserted; nothing is inserted then
+    */
+   public PlacedOrder insertOrder(int storeID, Map<String, Integer> items) throws SQLException {
+      boolean borrowed = borrowIfUnbound();
+      try {
+         int orderID = allocateOrderID();
+
+         StringBuilder insertOrder = new StringBuilder("WITH O(itemName, quantity) AS (VALUES ");
+         List<Object> params = new ArrayList<>();
+         for (Map.Entry<String, Integer> item : items.entrySet()) {
+            insertOrder.append(params.isEmpty() ? "(?, ?)" : ", (?, ?)");
+            params.add(item.getKey());
+            params.add(item.getValue());
+         }
+         // an unknown itemName is left out of the price, and then fails the foreign key of its ItemsInOrder row
+         insertOrder.append("), F AS (" +
+            "INSERT INTO FoodOrder (orderID, login, storeID, totalPrice, orderTimestamp, orderStatus) " +
+            "SELECT ?, ?, ?, SUM(I.price * O.quantity), now(), 'placed' FROM O JOIN Items I ON I.itemName = O.itemName " +
+            "RETURNING orderID, orderTimestamp, totalPrice), " +
+            "I AS (INSERT INTO ItemsInOrder (orderID, orderTimestamp, itemName, quantity) " +
+            "SELECT F.orderID, F.orderTimestamp, O.itemName, O.quantity FROM F CROSS JOIN O) " +
+            "SELECT totalPrice FROM F");
+         params.add(orderID);
+         params.add(getCurrentUser());
+         params.add(storeID);
+
+         List<List<String>> inserted = executeQueryAndReturnResult(insertOrder.toString(), params.toArray());
+         return new PlacedOrder(orderID, new BigDecimal(inserted.get(0).get(0)));
+      } finally {
+         releaseIfBorrowed(borrowed);
+      }
+   }
+
+   /**
+    * A row of the Items table.
+    */
+   static class MenuItem {
+      final String itemName;
+      final String ingredients;
+      final String typeOfItem;
+      final BigDecimal price;
+      final String description;
+
+      MenuItem(String itemName, String ingredients, String typeOfItem, BigDecimal price, String description) {
+         this.itemName = itemName;
+         this.ingredients = ingredients;
+         this.typeOfItem = typeOfItem;
+         this.price = price;
+         this.description = description;
+      }
+   }
+
+   /**
+    * Returns the items on the menu. The Items table is read once and kept in
+    * memory until invalidateMenuCache is called here, or until another
+    * process announces a change with NOTIFY on MENU_CHANNEL.
+    *
+    * @return the rows of the Items table
+    * @throws java.sql.SQLException when the menu could not be loaded
+    */
+   public List<MenuItem> getMenu() throws SQLException {
+      List<MenuItem> menu = menuCache;
+      if (menu != null && !menuChangedElsewhere()) {
+         return menu;
+      }
+
+      // listen before reading, so a change committed after the read is not missed
+      listenForMenuChanges();
+      long version = menuCacheVersion.get();
+      List<MenuItem> loaded = new ArrayList<>();
+      // built straight from the rows, without a List<String> copy of the table
+      executeQueryAndStream("SELECT itemName, ingredients, typeOfItem, price, description FROM Items;",
+            rs -> loaded.add(new MenuItem(rs.getString(1), rs.getString(2), rs.getString(3), rs.getBigDecimal(4), rs.getString(5))));
+      menu = Collections.unmodifiableList(loaded);
+
+      // only publish the menu if it was not changed while it was being read
+      synchronized (menuCacheVersion) {
+         if (menuCacheVersion.get() == version) {
+            menuCache = menu;
+         }
+      }
+      return menu;
+   }
+
+   /**
+    * Opens the connection that listens on MENU_CHANNEL if there is none. A
+    * pooled session opens a connection of its own outside the pool, since a
+    * pooled connection only reads its notifications when it is borrowed. A
+    * terminal session listens on its own connection. If no listener can be
+    * opened the menu is still cached, but only changes made by this process
+    * are seen.
+    */
+   private void listenForMenuChanges() {
+      menuListenerLock.lock();
+      try {
+         if (menuListener != null) {
+            try {
+               // the notifications received so far are older than the read that follows
+               menuListener.unwrap(PGConnection.class).getNotifications();
+               return;
+            }catch (SQLException e) {
+               // broken, listen again on a new connection
+               closeMenuListener();
+            }
+         }
+         Connection listener = this._pool != null ? this._pool.open() : this._connection;
+         try (Statement stmt = listener.createStatement()) {
+            stmt.execute("LISTEN " + MENU_CHANNEL);
+            menuListener = listener;
+         }finally {
+            if (menuListener == null && listener != this._connection) {
+               listener.close();
+            }
+         }
+      }catch (SQLException e) {
+         System.err.println("Unable to listen for menu changes: " + e.getMessage());
+         closeMenuListener();
+      }finally {
+         menuListenerLock.unlock();
+      }
+   }
+
+   /**
+    * Checks, at most every MENU_CHECK_MILLIS, whether another process
+    * announced a change to the Items table since the menu was cached, and
+    * drops the cached menu if so. Sessions arriving while another one checks
+    * use the cached menu.
+    *
+    * @return true if the cached menu must not be used
+    */
+   private static boolean menuChangedElsewhere() {
+      long now = System.nanoTime();
+      if (now - menuCheckedAt < TimeUnit.MILLISECONDS.toNanos(MENU_CHECK_MILLIS) || !menuListenerLock.tryLock()) {
+         return false;
+      }
+      try {
+         menuCheckedAt = now;
+         if (menuListener == null) {
+            return false;
+         }
+         PGNotification[] notifications = menuListener.unwrap(PGConnection.class).getNotifications();
+         if (notifications == null || notifications.length == 0) {
+            return false;
+         }
+      }catch (SQLException e) {
+         // a change may have been missed while the listener was broken; the next getMenu listens again
+         closeMenuListener();
+      }finally {
+         menuListenerLock.unlock();
+      }
+      invalidateMenuCache();
+      return true;
+   }
+
+   // called with menuListenerLock held
+   private static void closeMenuListener() {
+      if (menuListener != null) {
+         try {
+            menuListener.close();
+         }catch (SQLException e) {
+            // ignored.
+         }
+         menuListener = null;
+      }
+   }
+
+   /**
+    * Drops the cached menu. Must be called after every change to the Items table.
+    */
+   public static void invalidateMenuCache() {
+      synchronized (menuCacheVersion) {
+         menuCacheVersion.incrementAndGet();
+         menuCache = null;
+      }
+   }
+
+   /**
+    * Drops the cached menu of this process and tells the other processes,
+    * through NOTIFY on MENU_CHANNEL, to drop theirs. Must be called after
+    * every change to the Items table made through this session.
+    *
+    * @throws java.sql.SQLException when the notification could not be sent
+    */
+   public void menuChanged() throws SQLException {
+      invalidateMenuCache();
+      executeUpdate("NOTIFY " + MENU_CHANNEL);
+   }
+
+   /**
+    * Hashing and checking of the passwords of the Users table. A password is
+    * stored as a bcrypt hash ($2a$, with a random salt per password) of work
+    * factor COST: every hash or check runs 2^COST rounds of the key setup,
+    * so guessing a password from a stolen hash costs as much per guess as a
+    * login. PasswordBenchmark measures a hash and a check per work factor:
+    * about 30 ms at 8, 110 ms at 10 and 480 ms at 12 on one core, each step
+    * doubling it. The default is 10; set it with -Dpizzastore.password.cost=n.
+    *
+    * At that price a core checks some 9 logins a second. To hold login
+    * throughput at peak, a successful check is remembered per login as an
+    * HMAC-SHA256 of the login, the password and the stored hash, under a key
+    * drawn when the program starts and never written anywhere. Logging in
+    * again with the same password against the same hash is then checked
+    * against the HMAC in about a microsecond; a new hash or a wrong password misses
+    * and pays for bcrypt. -Dpizzastore.password.cacheSize=n sets how many
+    * logins are remembered (10000, 0 turns the cache off).
+    *
+    * An unknown login is checked against DUMMY_HASH, so whether a login
+    * exists does not show in how long a failed login takes.
+    *
+    * Users loaded from a users.csv that was not run through --hash-passwords
+    * still hold the password itself. Such a row is accepted, and with
+    * rehash on login (-Dpizzastore.password.rehashOnLogin, default true) it
+    * is replaced by a hash the first time its user logs in, as is a hash of a
+    * lower work factor than COST.
+    */
+   public static final class Passwords {
+
+      static final int COST = Integer.getInteger("pizzastore.password.cost", 10);
+      static final int CACHE_SIZE = Integer.getInteger("pizzastore.password.cacheSize", 10000);
+      static final boolean REHASH_ON_LOGIN = Boolean.parseBoolean(System.getProperty("pizzastore.password.rehashOnLogin", "true"));
+
+      // bcrypt reads no more than 72 bytes of a password, so longer ones are refused when set
+      static final int MAX_BYTES = 72;
+
+      // shown when a password is empty or tooLong; the limit is in UTF-8 bytes, not characters
+      static final String LENGTH_ERROR = "Error: Password must be between 1 and " + MAX_BYTES +
+         " bytes long (a character outside plain ASCII, such as an accented letter, counts as 2 to 4 bytes).";
+
+      private static final BCrypt.Hasher HASHER = BCrypt.with(BCrypt.Version.VERSION_2A);
+      private static final BCrypt.Verifyer VERIFYER =
+         BCrypt.verifyer(BCrypt.Version.VERSION_2A, LongPasswordStrategies.truncate(BCrypt.Version.VERSION_2A));
+      private static final SecureRandom RANDOM = new SecureRandom();
+      private static final String DUMMY_HASH = hash(Long.toHexString(RANDOM.nextLong()));
+      private static final SecretKeySpec CACHE_KEY = new SecretKeySpec(randomBytes(32), "HmacSHA256");
+      private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+         try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(CACHE_KEY);
+            return mac;
+         }catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+         }
+      });
+      private static final ConcurrentHashMap<String, byte[]> VERIFIED = new ConcurrentHashMap<>();
+
+      private Passwords() {
+      }
+
+      // a new bcrypt hash of the password
+      public static String hash(String password) {
+         return HASHER.hashToString(COST, password.toCharArray());
+      }
+
+      // whether a password is too long to be set
+      static boolean tooLong(String password) {
+         return password.getBytes(StandardCharsets.UTF_8).length > MAX_BYTES;
+      }
+
+      // whether a stored password is a bcrypt hash rather than the password itself
+      static boolean isHash(String stored) {
+         return stored.length() == 60 && stored.startsWith("$2");
+      }
+
+      // whether a stored password should be replaced by a hash of work factor COST
+      static boolean needsRehash(String stored) {
+         return !isHash(stored) || Integer.parseInt(stored.substring(4, 6)) < COST;
+      }
+
+      /**
+       * Checks a password against the stored password of a login.
+       *
+       * @param stored the hash (or, before migration, the password) of the
+       *        login, or null when there is no such login
+       */
+      public static boolean verify(String login, String password, String stored) {
+         if (stored == null || !isHash(stored)) {
+            // the same bcrypt work as a real check, whatever the outcome
+            VERIFYER.verify(password.toCharArray(), DUMMY_HASH);
+            return stored != null && MessageDigest.isEqual(
+               password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+         }
+         byte[] mac = null;
+         if (CACHE_SIZE > 0) {
+            mac = MAC.get().doFinal((login + '\0' + password + '\0' + stored).getBytes(StandardCharsets.UTF_8));
+            byte[] verified = VERIFIED.get(login);
+            if (verified != null && MessageDigest.isEqual(verified, mac)) {
+               return true;
+            }
+         }
+         boolean verified = VERIFYER.verify(password.toCharArray(), stored).verified && !tooLong(password);
+         if (verified && mac != null) {
+            if (VERIFIED.size() >= CACHE_SIZE) {
+               // make room by forgetting any one login; it pays for bcrypt once more
+               Iterator<String> logins = VERIFIED.keySet().iterator();
+               if (logins.hasNext()) {
+                  logins.next();
+                  logins.remove();
+               }
+            }
+            VERIFIED.put(login, mac);
+         }
+         return verified;
+      }
+
+      private static byte[] randomBytes(int count) {
+         byte[] bytes = new byte[count];
+         RANDOM.nextBytes(bytes);
+         return bytes;
+      }
+   }//end Passwords
+
+   /**
+    * Checks the login and password of a user (see Passwords). When rehash on
+    * login is on and the stored password is not a hash of the current work
+    * factor, it is replaced by one.
+    *
+    * @return true if a user with this login and password exists
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public boolean authenticate(String login, String password) throws SQLException {
+      List<List<String>> user = executeQueryAndReturnResult("SELECT password FROM Users WHERE login = ?", login);
+      String stored = user.isEmpty() ? null : user.get(0).get(0);
+      if (!Passwords.verify(login, password, stored)) {
+         return false;
+      }
+      if (Passwords.REHASH_ON_LOGIN && Passwords.needsRehash(stored)) {
+         // unless the password changed meanwhile
+         executeUpdate("UPDATE Users SET password = ? WHERE login = ? AND password = ?", Passwords.hash(password), login, stored);
+      }
+      return true;
+   }
+
+   /**
+    * Returns the role (customer, driver or manager) of a user.
+    *
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public String getUserRole(String login) throws SQLException {
+      List<List<String>> user = executeQueryAndReturnResult("SELECT role FROM Users WHERE login = ?", login);
+      return user.get(0).get(0).trim();
+   }
+
+   /**
+    * The key of an order and what updateOrderStatus checks before moving it
+    * along, as read by getOrder.
+    */
+   static class OrderState {
+      final int orderID;
+      final Timestamp orderTimestamp;
+      final String orderStatus;
+      // null while the order is unclaimed
+      final String driverLogin;
+
+      OrderState(int orderID, Timestamp orderTimestamp, String orderStatus, String driverLogin) {
+         this.orderID = orderID;
+         this.orderTimestamp = orderTimestamp;
+         this.orderStatus = orderStatus;
+         this.driverLogin = driverLogin;
+      }
+   }
+
+   /**
+    * Returns the key, status and driver of an order, or null when the order
+    * does not exist. FoodOrder is partitioned by month and the orderID alone
+    * does not tell which month, so the orderTimestamp is looked up in
+    * FoodOrderKey first; its value prunes the FoodOrder partitions when the
+    * statement runs, so only the partition of its month is read. The statements that follow about the same order take the
+    * orderTimestamp returned and only read the partitions of its month too.
+    *
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public OrderState getOrder(int orderID) throws SQLException {
+      List<List<String>> order = executeQueryAndReturnResult(
+         "SELECT orderTimestamp, orderStatus, driverLogin FROM FoodOrder " +
+         "WHERE orderID = ? AND orderTimestamp = (SELECT orderTimestamp FROM FoodOrderKey WHERE orderID = ?)", orderID, orderID);
+      if (order.isEmpty()) {
+         return null;
+      }
+      List<String> row = order.get(0);
+      return new OrderState(orderID, Timestamp.valueOf(row.get(0)), row.get(1), row.get(2));
+   }
+
+   /**
+    * Returns the rows (orderID, orderTimestamp, totalPrice, orderStatus, itemName, quantity)
+    * of one order, one row per item, or a single row with a null itemName
+    * when the order has no items. The order and its items are read by their
+    * whole key from the partitions of its month only.
+    *
+    * @param orderID the order to look up
+    * @param orderTimestamp the orderTimestamp of the order, as returned by getOrder
+    * @param login only return the order if it was placed by this login, or null for any order
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> getOrderRows(int orderID, Timestamp orderTimestamp, String login) throws SQLException {
+      String query =
+         "SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM FoodOrder F LEFT JOIN ItemsInOrder I ON F.orderID = I.orderID AND F.orderTimestamp = I.orderTimestamp " +
+         "WHERE F.orderID = ? AND F.orderTimestamp = ?";
+      if (login == null) {
+         return executeQueryAndReturnResult(query, orderID, orderTimestamp);
+      }
+      return executeQueryAndReturnResult(query + " AND F.login = ?", orderID, orderTimestamp, login);
+   }
+
+   /**
+    * Returns the rows of one order like getOrderRows(orderID, orderTimestamp,
+    * login), for callers that only know the orderID: its orderTimestamp is
+    * looked up with getOrder first. No rows when the order does not exist.
+    *
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> getOrderRows(int orderID, String login) throws SQLException {
+      OrderState order = getOrder(orderID);
+      return order == null ? new ArrayList<>() : getOrderRows(orderID, order.orderTimestamp, login);
+   }
+
+   /**
+    * Returns the status that follows a status of ORDER_STATUSES, or null when
+    * the order is complete.
+    *
+    * @throws IllegalArgumentException when status is not an order status
+    */
+   static String nextOrderStatus(String status) {
+      for (int i = 0; i < ORDER_STATUSES.length; ++i) {
+         if (ORDER_STATUSES[i].equals(status)) {
+            return i + 1 < ORDER_STATUSES.length ? ORDER_STATUSES[i + 1] : null;
+         }
+      }
+      throw new IllegalArgumentException("Unknown order status " + status);
+   }
+
+   /**
+    * Returns the status of an order, or null when the order does not exist.
+    *
+    * @param orderTimestamp the orderTimestamp of the order, as returned by getOrder
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public String getOrderStatus(int orderID, Timestamp orderTimestamp) throws SQLException {
+      List<List<String>> order = executeQueryAndReturnResult(
+         "SELECT orderStatus FROM FoodOrder WHERE orderID = ? AND orderTimestamp = ?", orderID, orderTimestamp);
+      return order.isEmpty() ? null : order.get(0).get(0);
+   }
+
+   /**
+    * Moves an order from one status to the next one. The update only applies
+    * while the order is still in the status given, so two drivers advancing
+    * the same order at once cannot skip a status.
+    *
+    * @param orderID the order to advance
+    * @param orderTimestamp the orderTimestamp of the order, as returned by getOrder
+    * @param status the status the order is expected to be in
+    * @return false when the order is not (anymore) in that status
+    * @throws IllegalArgumentException when the order is already complete
+    * @throws java.sql.SQLException when failed to execute the update
+    */
+   public boolean advanceOrderStatus(int orderID, Timestamp orderTimestamp, String status) throws SQLException {
+      return advanceOrderStatus(orderID, orderTimestamp, status, null);
+   }
+
+   /**
+    * Moves an order from one status to the next one, like
+    * advanceOrderStatus(orderID, orderTimestamp, status), but only while the
+    * order is claimed by the driver given.
+    *
+    * @param driverLogin the driver who must hold the order, or null for any
+    * @return false when the order is not (anymore) in that status or held by that driver
+    * @throws IllegalArgumentException when the order is already complete
+    * @throws java.sql.SQLException when failed to execute the update
+    */
+   public boolean advanceOrderStatus(int orderID, Timestamp orderTimestamp, String status, String driverLogin) throws SQLException {
+      String next = nextOrderStatus(status);
+      if (next == null) {
+         throw new IllegalArgumentException("Order " + orderID + " is already complete");
+      }
+      // the driver binds strings as varchar, which does not convert to an enum on its own
+      String update = "UPDATE FoodOrder SET orderStatus = ?::order_status WHERE orderID = ? AND orderTimestamp = ? AND orderStatus = ?::order_status";
+      if (driverLogin == null) {
+         return executeUpdate(update, next, orderID, orderTimestamp, status) == 1;
+      }
+      return executeUpdate(update + " AND driverLogin = ?", next, orderID, orderTimestamp, status, driverLogin) == 1;
+   }
+
+   /**
+    * Claims the oldest unclaimed open order of a store for a driver and
+    * returns it as orderID, orderTimestamp, orderStatus, login, totalPrice,
+    * driverLogin, or null when there is nothing left to claim.
+    *
+    * The order is picked with FOR UPDATE SKIP LOCKED: an order another
+    * driver is claiming at the same moment is locked and passed over instead
+    * of waited for, so any number of drivers claim from the same queue
+    * without blocking each other and without two of them getting the same
+    * order. The order is then updated by its whole key, in the partition of
+    * its month only.
+    *
+    * @param storeID the store whose queue is claimed from
+    * @param driverLogin the driver taking the order
+    * @throws java.sql.SQLException when failed to execute the update
+    */
+   public List<String> claimNextOrder(int storeID, String driverLogin) throws SQLException {
+      List<List<String>> claimed = executeQueryAndReturnResult(
+         "UPDATE FoodOrder SET driverLogin = ? WHERE (orderID, orderTimestamp) = (" +
+            "SELECT orderID, orderTimestamp FROM FoodOrder WHERE storeID = ? AND orderStatus <> 'complete' AND driverLogin IS NULL " +
+            "ORDER BY orderTimestamp, orderID LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+         "RETURNING orderID, orderTimestamp, orderStatus, login, totalPrice, driverLogin",
+         driverLogin, storeID);
+      return claimed.isEmpty() ? null : claimed.get(0);
+   }
+
+   /**
+    * Returns a pager over the orders of a store that are not complete yet, in
+    * (orderTimestamp, orderID) order, as rows of orderID, orderTimestamp,
+    * orderStatus, login, totalPrice, driverLogin. The condition on orderStatus
+    * is written out as in the partial index FoodOrder_open_storeID_idx so the
+    * planner can use it; each page is a range of that index.
+    *
+    * @param storeID the store whose queue is returned
+    * @param pageSize the number of orders per page
+    */
+   public KeysetPager openOrders(int storeID, int pageSize) {
+      return new KeysetPager(this,
+         "SELECT orderID, orderTimestamp, orderStatus, login, totalPrice, driverLogin FROM FoodOrder " +
+         "WHERE (orderTimestamp, orderID) > (?, ?) AND storeID = ? AND orderStatus <> 'complete' ORDER BY orderTimestamp, orderID LIMIT ?",
+         new int[] { 1, 0 }, new Object[] { FIRST_ORDER_TIMESTAMP, Integer.MIN_VALUE }, pageSize, storeID);
+   }
+
+   /**
+    * Adds the orders placed since the last refresh to the sales rollups of
+    * create_rollups.sql and returns how many there were.
+    *
+    * @throws java.sql.SQLException when failed to refresh the rollups
+    */
+   public long refreshSalesRollups() throws SQLException {
+      return Long.parseLong(executeQueryAndReturnResult("SELECT refresh_sales_rollups()").get(0).get(0));
+   }
+
+   /**
+    * Creates the FoodOrder and ItemsInOrder partitions of this month and of
+    * the PARTITION_MONTHS_AHEAD months after it, so new orders always have a
+    * partition. When the pizzastore.partitions.keepMonths system property is
+    * set, the partitions of the months before the last keepMonths are
+    * dropped; by default the whole history is kept. Returns the number of
+    * months dropped.
+    *
+    * @throws java.sql.SQLException when failed to create or drop a partition
+    */
+   public int maintainOrderPartitions() throws SQLException {
+      Integer keepMonths = Integer.getInteger("pizzastore.partitions.keepMonths");
+      return Integer.parseInt(executeQueryAndReturnResult(
+         "SELECT maintain_order_partitions(?, ?::integer)", PARTITION_MONTHS_AHEAD, keepMonths).get(0).get(0));
+   }
+
+   /**
+    * Returns the hour of the latest sale in the rollups, or null when there
+    * was none.
+    *
+    * @param storeID the store, or null for all stores
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public LocalDateTime getLatestSaleHour(Integer storeID) throws SQLException {
+      List<List<String>> latest = storeID == null
+         ? executeQueryAndReturnResult("SELECT max(hour) FROM StoreSalesHourly")
+         : executeQueryAndReturnResult("SELECT max(hour) FROM StoreSalesHourly WHERE storeID = ?", storeID);
+      String hour = latest.get(0).get(0);
+      return hour == null ? null : Timestamp.valueOf(hour).toLocalDateTime();
+   }
+
+   /**
+    * Returns the sales per day from the rollups, newest first, as rows of
+    * day, orders, revenue, average order value.
+    *
+    * @param storeID the store, or null for all stores
+    * @param from the first day included
+    * @param to the day after the last day included
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> getDailySales(Integer storeID, LocalDate from, LocalDate to) throws SQLException {
+      return getSales("hour::date", storeID, from.atStartOfDay(), to.atStartOfDay());
+   }
+
+   /**
+    * Returns the sales per hour from the rollups, newest first, as rows of
+    * hour, orders, revenue, average order value.
+    *
+    * @param storeID the store, or null for all stores
+    * @param day the day whose hours are returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> getHourlySales(Integer storeID, LocalDate day) throws SQLException {
+      return getSales("hour", storeID, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+   }
+
+   // sums StoreSalesHourly from (inclusive) to (exclusive) per the given expression of hour
+   private List<List<String>> getSales(String period, Integer storeID, LocalDateTime from, LocalDateTime to) throws SQLException {
+      String query = "SELECT " + period + ", sum(orderCount), sum(revenue), round(sum(revenue) / sum(orderCount), 2) " +
+         "FROM StoreSalesHourly WHERE hour >= ? AND hour < ?" + (storeID == null ? "" : " AND storeID = ?") +
+         " GROUP BY 1 ORDER BY 1 DESC";
+      return storeID == null
+         ? executeQueryAndReturnResult(query, from, to)
+         : executeQueryAndReturnResult(query, from, to, storeID);
+   }
+
+   /**
+    * Returns the items sold most, as rows of itemName, units sold and number
+    * of orders they were in.
+    *
+    * @param storeID the store, or null for all stores
+    * @param from the first day included
+    * @param to the day after the last day included
+    * @param limit the most items returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> getTopItems(Integer storeID, LocalDate from, LocalDate to, int limit) throws SQLException {
+      String query = "SELECT itemName, sum(quantity), sum(orderCount) FROM ItemSalesDaily WHERE day >= ? AND day < ?" +
+         (storeID == null ? "" : " AND storeID = ?") + " GROUP BY itemName ORDER BY 2 DESC, 1 LIMIT ?";
+      return storeID == null
+         ? executeQueryAndReturnResult(query, from, to, limit)
+         : executeQueryAndReturnResult(query, from, to, storeID, limit);
+   }
+
+   /**
+    * Returns the stores with the most revenue, as rows of storeID, orders,
+    * revenue and average order value.
+    *
+    * @param from the first day included
+    * @param to the day after the last day included
+    * @param limit the most stores returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public List<List<String>> getTopStores(LocalDate from, LocalDate to, int limit) throws SQLException {
+      return executeQueryAndReturnResult(
+         "SELECT storeID, sum(orderCount), sum(revenue), round(sum(revenue) / sum(orderCount), 2) " +
+         "FROM StoreSalesHourly WHERE hour >= ? AND hour < ? GROUP BY storeID ORDER BY 3 DESC, 1 LIMIT ?",
+         from.atStartOfDay(), to.atStartOfDay(), limit);
+   }
+
+   /**
+    * Criteria of a store search. Criteria left null (or false) match every store.
+    */
+   static class StoreFilter {
+      // compared ignoring case
+      String city;
+      String state;
+      boolean openOnly;
+      Double minReviewScore;
+   }
+
+   /**
+    * Returns a pager over the stores matching a search, in storeID order, as
+    * rows of storeID, address, city, state, reviewScore, isOpen. City and
+    * state are matched through the expression indexes of create_indexes.sql.
+    *
+    * @param filter the search criteria
+    * @param pageSize the number of stores per page
+    */
+   public KeysetPager searchStores(StoreFilter filter, int pageSize) {
+      StringBuilder query = new StringBuilder(
+         "SELECT storeID, address, city, state, reviewScore, isOpen FROM Store WHERE storeID > ?");
+      List<Object> params = new ArrayList<>();
+      if (filter.city != null) {
+         query.append(" AND lower(city) = lower(?)");
+         params.add(filter.city);
+      }
+      if (filter.state != null) {
+         query.append(" AND lower(state) = lower(?)");
+         params.add(filter.state);
+      }
+      if (filter.openOnly) {
+         query.append(" AND isOpen = 'yes'");
+      }
+      if (filter.minReviewScore != null) {
+         query.append(" AND reviewScore >= ?");
+         params.add(filter.minReviewScore);
+      }
+      query.append(" ORDER BY storeID LIMIT ?");
+      return new KeysetPager(this, query.toString(), 0, Integer.MIN_VALUE, pageSize, params.toArray());
+   }
+
+   /**
+    * Reads the rows of a query a page at a time by seeking past the key of
+    * the last row read instead of skipping rows with OFFSET, so a deep page
+    * costs one index range scan like the first one, and no more than a page
+    * of rows is held in memory. The query has the form
+    *
+    *    SELECT ... WHERE key > ? [AND ...] ORDER BY key LIMIT ?
+    *
+    * where the first placeholder takes the last key read, the last one the
+    * page size and those in between the params. The key is a storeID or
+    * orderID (an Integer) or an itemName (a String). A key of several
+    * columns, like the (orderTimestamp, orderID) of the partitioned
+    * FoodOrder, is compared as a row, WHERE (a, b) > (?, ?), and takes one
+    * placeholder per column. A query may return several rows per key, like
+    * an order with its items, as long as its LIMIT applies to the keys; the
+    * page size counts keys, not rows.
+    */
+   static class KeysetPager {
+      private final PizzaStore esql;
+      private final String query;
+      private final int[] keyColumns;
+      private final int pageSize;
+      private final Object[] params;
+      private Object[] lastKey;
+      private boolean exhausted = false;
+
+      /**
+       * @param query the query, see the class comment
+       * @param keyColumn the index of the key in the rows returned
+       * @param firstKey a key smaller than every key, such as Integer.MIN_VALUE or ""
+       * @param pageSize the number of keys per page
+       * @param params the values of the placeholders between the key and the page size
+       */
+      KeysetPager(PizzaStore esql, String query, int keyColumn, Object firstKey, int pageSize, Object... params) {
+         this(esql, query, new int[] { keyColumn }, new Object[] { firstKey }, pageSize, params);
+      }
+
+      /**
+       * @param keyColumns the index of each column of the key in the rows returned
+       * @param firstKey a key smaller than every key, one value per column; an
+       *        Integer, a Timestamp or a String each
+       */
+      KeysetPager(PizzaStore esql, String query, int[] keyColumns, Object[] firstKey, int pageSize, Object... params) {
+         this.esql = esql;
+         this.query = query;
+         this.keyColumns = keyColumns;
+         this.lastKey = firstKey;
+         this.pageSize = pageSize;
+         this.params = params;
+      }
+
+      /**
+       * Continues after the given key, for callers resuming a listing a page at a time.
+       */
+      KeysetPager startAfter(Object... key) {
+         this.lastKey = key;
+         this.exhausted = false;
+         return this;
+      }
+
+      /**
+       * Returns the next page, or an empty list once every row has been read.
+       *
+       * @throws java.sql.SQLException when failed to execute the query
+       */
+      List<List<String>> next() throws SQLException {
+         if (exhausted) {
+            return Collections.emptyList();
+         }
+         Object[] values = new Object[lastKey.length + params.length + 1];
+         System.arraycopy(lastKey, 0, values, 0, lastKey.length);
+         System.arraycopy(params, 0, values, lastKey.length, params.length);
+         values[values.length - 1] = pageSize;
+         List<List<String>> page = esql.executeQueryAndReturnResult(query, values);
+
+         int keys = 0;
+         List<String> previous = null;
+         for (List<String> row : page) {
+            if (previous == null || !sameKey(row, previous)) {
+               previous = row;
+               ++keys;
+            }
+         }
+         if (previous != null) {
+            Object[] key = new Object[keyColumns.length];
+            for (int i = 0; i < key.length; ++i) {
+               String value = previous.get(keyColumns[i]);
+               key[i] = lastKey[i] instanceof Integer ? (Object) Integer.valueOf(value)
+                  : lastKey[i] instanceof Timestamp ? (Object) Timestamp.valueOf(value) : value;
+            }
+            lastKey = key;
+         }
+         // a short page is the last one, which saves asking for an empty page
+         exhausted = keys < pageSize;
+         return page;
+      }
+
+      // false once the last page has been returned
+      boolean hasNext() {
+         return !exhausted;
+      }
+
+      private boolean sameKey(List<String> row, List<String> other) {
+         for (int column : keyColumns) {
+            if (!row.get(column).equals(other.get(column))) {
+               return false;
+            }
+         }
+         return true;
+      }
+   }
+
+   /**
+    * Method to close the physical connection if it is open.
+    */
+   public void cleanup(){
+      try{
+         if (this._statementCache != null){
+            this._statementCache.close ();
+         }//end if
+         if (this._connection != null){
+            this._connection.close ();
+         }//end if
+      }catch (SQLException e){
+         // ignored.
+      }//end try
+   }//end cleanup
+
+   /**
+    * Sets the terminal the menus of runTerminal are shown on.
+    *
+    * @param in the keyboard input of the terminal
+    * @param out the screen of the terminal
+    */
+   public void setTerminal(BufferedReader in, PrintStream out) {
+      this.in = in;
+      this.out = out;
+   }
+
+   // Setter for the current user.
+   public void setCurrentUser(String user) {
+      this.currentUser = user;
+   }
+
+   // Getter for the current user.
+   public String getCurrentUser() {
+      return this.currentUser;
+   }
+
+   /**
+    * The main execution method
+    *
+    * @param args the command line arguments this inclues the <mysql|pgsql> <login file>
+    */
+   public static void main (String[] args) {
+      HttpServer metricsServer = null;
+      Integer metricsPort = Integer.getInteger("pizzastore.metrics.port");
+      if (metricsPort != null) {
+         try {
+            metricsServer = serveMetrics(metricsPort);
+            System.out.println("Serving metrics on http://localhost:" + metricsServer.getAddress().getPort() + "/metrics");
+         }catch (IOException e) {
+            System.err.println("Unable to serve metrics: " + e.getMessage());
+         }
+      }
+      try {
+         run(args);
+      } finally {
+         if (metricsServer != null) {
+            metricsServer.stop(0);
+         }
+      }
+   }//end main
+
+   // runs the mode selected by the arguments of main
+   private static void run(String[] args) {
+      if (args.length == 5 && (args[0].equals("--server") || args[0].equals("--terminal-server"))) {
+         try {
+            // use postgres JDBC driver.
+            Class.forName ("org.postgresql.Driver");
+            runServer(Integer.parseInt(args[1]), args[2], args[3], args[4], args[0].equals("--terminal-server"));
+         }catch (Exception e) {
+            System.err.println (e.getMessage ());
+         }
+         return;
+      }//end if
+      if (args.length == 5 && args[0].equals("--load")) {
+         try {
+            Class.forName ("org.postgresql.Driver");
+            bulkLoad(args[1], args[2], args[3], args[4]);
+         }catch (Exception e) {
+            System.err.println (e.getMessage ());
+            System.exit(1);
+         }
+         return;
+      }//end if
+      if (args.length == 3 && args[0].equals("--hash-passwords")) {
+         try {
+            hashPasswords(new File(args[1]), new File(args[2]));
+         }catch (Exception e) {
+            System.err.println (e.getMessage ());
+            System.exit(1);
+         }
+         return;
+      }//end if
+      if (args.length == 3 && args[0].equals("--load-test")) {
+         try {
+            runLoadTest(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+         }catch (Exception e) {
+            System.err.println (e.getMessage ());
+         }
+         return;
+      }//end if
+      if (args.length != 3) {
+         System.err.println (
+            "Usage: " +
+            "java [-classpath <classpath>] " +
+            PizzaStore.class.getName () +
+            " [--server|--terminal-server <listen port>] <dbname> <port> <user>\n" +
+            "       java [-classpath <classpath>] " +
+            PizzaStore.class.getName () +
+            " --load-test <sessions> <requests>\n" +
+            "       java [-classpath <classpath>] " +
+            PizzaStore.class.getName () +
+            " --load <data dir> <dbname> <port> <user>\n" +
+            "       java [-classpath <classpath>] " +
+            PizzaStore.class.getName () +
+            " --hash-passwords <users.csv> <hashed users.csv>");
+         return;
+      }//end if
+
+      PizzaStore esql = null;
+      try{
+         // use postgres JDBC driver.
+         Class.forName ("org.postgresql.Driver").newInstance ();
+         // instantiate the PizzaStore object and creates a physical
+         // connection.
+         String dbname = args[0];
+         String dbport = args[1];
+         String user = args[2];
+         esql = new PizzaStore (dbname, dbport, user, "");
+         // the server mode does this daily; a terminal makes sure the orders it places have a partition
+         try {
+            esql.maintainOrderPartitions();
+         }catch (SQLException e) {
+            System.err.println("An error occurred while maintaining the order partitions: " + e.getMessage());
+         }
+
+         esql.setTerminal(new BufferedReader(new InputStreamReader(System.in)), System.out);
+         runTerminal(esql);
+      }catch(Exception e) {
+         System.err.println (e.getMessage ());
+      }finally{
+         // make sure to cleanup the created table and close the connection.
+         try{
+            if(esql != null) {
+               System.out.print("Disconnecting from database...");
+               esql.cleanup ();
+               System.out.println("Done\n\nBye !");
+            }//end if
+         }catch (Exception e) {
+            // ignored.
+         }//end try
+      }//end try
+   }//end run
+
+   /**
+    * Runs the menus of the user interface on the terminal of a session until
+    * the user exits or the terminal is closed.
+    *
+    * @param esql the session, with its terminal set
+    * @throws java.io.IOException when the terminal was closed
+    */
+   public static void runTerminal(PizzaStore esql) throws IOException {
+      Greeting(esql);
+      boolean keepon = true;
+      while(keepon) {
+         // These are sample SQL statements
+         esql.out.println("MAIN MENU");
+         esql.out.println("---------");
+         esql.out.println("1. Create user");
+         esql.out.println("2. Log in");
+         esql.out.println("9. < EXIT");
+         String authorisedUser = null;
+         switch (readChoice(esql)){
+            case 1: runAction(esql, "CreateUser", PizzaStore::CreateUser); break;
+            case 2: authorisedUser = LogIn(esql); break;
+            case 9: keepon = false; break;
+            default : esql.out.println("Unrecognized choice!"); break;
+         }//end switch
+         if (authorisedUser != null) {
+           boolean usermenu = true;
+           while(usermenu) {
+             esql.out.println("MAIN MENU");
+             esql.out.println("---------");
+             esql.out.println("1. View Profile");
+             esql.out.println("2. Update Profile");
+             esql.out.println("3. View Menu");
+             esql.out.println("4. Place Order"); //make sure user specifies which store
+             esql.out.println("5. View Full Order ID History");
+             esql.out.println("6. View Past 5 Order IDs");
+             esql.out.println("7. View Order Information"); //user should specify orderID and then be able to see detailed information about the order
+             esql.out.println("8. View Stores"); 
+
+             //**the following functionalities should only be able to be used by drivers & managers**
+             esql.out.println("9. Update Order Status");
+
+             //**the following functionalities should ony be able to be used by managers**
+             esql.out.println("10. Update Menu");
+             esql.out.println("11. Update User");
+             esql.out.println("14. View Sales Dashboard");
+
+             //**the following functionalities should only be able to be used by drivers & managers**
+             esql.out.println("12. View Open Orders of a Store");
+             esql.out.println("13. Claim Next Order of a Store");
+
+             esql.out.println(".........................");
+             esql.out.println("20. Log out");
+             switch (readChoice(esql)){
+                case 1: runAction(esql, "viewProfile", PizzaStore::viewProfile); break;
+                case 2: runAction(esql, "updateProfile", PizzaStore::updateProfile); break;
+                case 3: runAction(esql, "viewMenu", PizzaStore::viewMenu); break;
+                case 4: runAction(esql, "placeOrder", PizzaStore::placeOrder); break;
+                case 5: runAction(esql, "viewAllOrders", PizzaStore::viewAllOrders); break;
+                case 6: runAction(esql, "viewRecentOrders", PizzaStore::viewRecentOrders); break;
+                case 7: runAction(esql, "viewOrderInfo", PizzaStore::viewOrderInfo); break;
+                case 8: runAction(esql, "viewStores", PizzaStore::viewStores); break;
+                case 9: runAction(esql, "updateOrderStatus", PizzaStore::updateOrderStatus); break;
+                case 10: runAction(esql, "updateMenu", PizzaStore::updateMenu); break;
+                case 11: runAction(esql, "updateUser", PizzaStore::updateUser); break;
+                case 12: runAction(esql, "viewOpenOrders", PizzaStore::viewOpenOrders); break;
+                case 13: runAction(esql, "claimNextOrder", PizzaStore::claimNextOrder); break;
+                case 14: runAction(esql, "viewSalesDashboard", PizzaStore::viewSalesDashboard); break;
+
+
+                case 20: usermenu = false; break;
+                default : esql.out.println("Unrecognized choice!"); break;
+             }
+           }
+         }
+      }//end while
+   }//end runTerminal
+
+   /**
+    * A screen of the menus.
+    */
+   interface MenuAction {
+      void run(PizzaStore esql) throws IOException;
+   }
+
+   /**
+    * Runs a menu action and records it in ACTIONS and ACTION_WALL_TIMES. The
+    * handlers report their own errors to the user, so the action counts as
+    * failed when one of the database calls it made failed; its rows and bytes
+    * are those of its calls. ACTIONS times the action by the sum of its
+    * database calls, ACTION_WALL_TIMES from start to end, which includes the
+    * time the user took to answer the prompts.
+    */
+   static void runAction(PizzaStore esql, String name, MenuAction action) throws IOException {
+      long start = System.nanoTime();
+      long errors = esql.callErrors;
+      long nanos = esql.callNanos;
+      long rows = esql.callRows;
+      long bytes = esql.callBytes;
+      try {
+         action.run(esql);
+      } finally {
+         boolean failed = esql.callErrors != errors;
+         ACTIONS.recordNanos(name, esql.callNanos - nanos, esql.callRows - rows, esql.callBytes - bytes, failed);
+         ACTION_WALL_TIMES.record(name, start, esql.callRows - rows, esql.callBytes - bytes, failed);
+      }
+   }
+
+   public static void Greeting(PizzaStore esql){
+      esql.out.println(
+         "\n\n*******************************************************\n" +
+         "              User Interface      	               \n" +
+         "*******************************************************\n");
+   }//end Greeting
+
+   /*
+    * Reads the users choice given from the keyboard
+    * @int
+    **/
+   public static int readChoice(PizzaStore esql) throws IOException {
+      int input;
+      // returns only if a correct value is given.
+      do {
+         esql.out.print("Please make your choice: ");
+         String line = esql.in.readLine();
+         if (line == null) {
+            throw new EOFException("The terminal was closed");
+         }
+         try { // read the integer, parse it and break.
+            input = Integer.parseInt(line);
+            break;
+         }catch (Exception e) {
+            esql.out.println("Your input is invalid!");
+            continue;
+         }//end try
+      }while (true);
+      return input;
+   }//end readChoice
+
+   /**
+    * Function to create a new user
+    **/
+   public static void CreateUser(PizzaStore esql){
+      try {
+         String login, password, role, favoriteItems, phoneNum;
+         // get user login input
+         esql.out.print("Enter login: ");
+         login = esql.in.readLine().trim();
+
+         // validate login
+         if (login.length() > 50 || login.isEmpty()) {
+            esql.out.println("Error: Login must be between 1 and 50 characters.");
+            return;
+         }
+
+         // check for unique login
+         String checkQuery = "SELECT 1 FROM Users WHERE login = ? LIMIT 1;";
+         if (esql.executeExists(checkQuery, login)) {
+            esql.out.println("Error: Login already exists. Please choose a different login.");
+            return;
+         }
+
+         // get user password input
+         esql.out.print("Enter password: ");
+         password = esql.in.readLine().trim();
+
+         // validate password
+         if (Passwords.tooLong(password) || password.isEmpty()) {
+            esql.out.println(Passwords.LENGTH_ERROR);
+            return;
+         }
+
+         // get user phone number input
+         esql.out.print("Enter phone number: ");
+         phoneNum = esql.in.readLine().trim();
+         
+         // validate phone number
+         String phoneRegex = "^\\d{3}-\\d{3}-\\d{4}$";
+         if (phoneNum.isEmpty()) {
+            esql.out.println("Error: Phone number cannot be empty.");
+            return;
+         }
+         if (!phoneNum.matches(phoneRegex)) {
+            esql.out.println("Error: Phone number must be in the format XXX-XXX-XXXX.");
+            return;
+         }
+
+         // set role and favorite item
+         role = "customer";
+         favoriteItems = "";
+
+         // build SQL statement 
+         String query =
+            "INSERT INTO Users (login, password, role, favoriteItems, phoneNum)" +
+            "VALUES (?, ?, ?, ?, ?);";
+
+         // execute SQL statement, storing the hash of the password
+         esql.executeUpdate(query, login, Passwords.hash(password), role, favoriteItems, phoneNum);
+         esql.out.println("User created successfully!");
+
+      } catch(Exception e) {
+         esql.out.println("An error occurred while creating user: " + e.getMessage());
+      }
+   }//end CreateUser
+
+   /**
+    * Check log in credentials for an existing user
+    * @param esql the PizzaStore object
+    * @return User login or null is the user does not exist
+    **/
+   public static String LogIn(PizzaStore esql){
+      try {
+         String user_login, password;
+         // get user login input
+         esql.out.print("Enter login: ");
+         user_login = esql.in.readLine().trim();
+
+         // validate login
+         if (user_login.length() > 50 || user_login.isEmpty()) {
+            esql.out.println("Error: Login must be between 1 and 50 characters.");
+            return null;
+         }
+
+         esql.out.print("Enter password: ");
+         password = esql.in.readLine().trim();
+
+         // validate password
+         if (Passwords.tooLong(password) || password.isEmpty()) {
+            esql.out.println(Passwords.LENGTH_ERROR);
+            return null;
+         }
+
+         if (!esql.authenticate(user_login, password)) {
+            esql.out.println("Error: User does not exists. Incorrect login or password.");
+            return null;
+         }
+         esql.setCurrentUser(user_login);
+         return user_login;
+      }catch(Exception e) {
+         esql.out.println("An error occurred while creating user: " + e.getMessage());
+      }
+
+      return null;
+   }//end LogIn
+
+   /**
+    * Helper function to print the profile of a user.
+    * @param login the login of the user to print the profile of
+    **/
+   public static void printProfileHelper(PizzaStore esql, String login) {
+      esql.out.println("\n=== Profile for " + login + " ===");
+      try {
+         // Construct SQL query to fetch the user's profile information.
+         String query = "SELECT favoriteItems, phoneNum, role FROM Users WHERE login = ?;";
+         
+         // Retrieve the result as a list of records.
+         List<List<String>> results = esql.executeQueryAndReturnResult(query, login);
+         List<String> row = results.get(0);
+         String favoriteItems = row.get(0);
+         String phoneNum = row.get(1);
+         String role = row.get(2);
+         
+         // Prepare a formatted table output.
+         String line = "+----------------------+--------------------------+";
+         esql.out.println(line);
+         esql.out.printf("| %-20s | %-24s |\n", "Field", "Value");
+         esql.out.println(line);
+         esql.out.printf("| %-20s | %-24s |\n", "Favorite Items", favoriteItems);
+         esql.out.printf("| %-20s | %-24s |\n", "Phone Number", phoneNum);
+         esql.out.printf("| %-20s | %-24s |\n", "Role", role);
+         esql.out.println(line);
+     } catch (Exception e) {
+         esql.out.println("An error occurred while viewing profile: " + e.getMessage());
+     }
+   }
+
+   /**
+    * View the profile of the current user.
+    * @param esql the PizzaStore object
+    */
+   public static void viewProfile(PizzaStore esql) {
+      String login = esql.getCurrentUser();
+      printProfileHelper(esql, login);
+   }
+   
+   /**
+    * Update the profile of the current user.
+    */
+   public static void updateProfile(PizzaStore esql) throws IOException {
+      String login = esql.getCurrentUser();
+      esql.out.println("\n=== Profile Update Menu for " + login + " ===");
+      boolean update_menu = true;
+      while (update_menu) {
+         esql.out.println("1. Update favorite item");
+         esql.out.println("2. Update phone number");
+         esql.out.println("3. Update password");
+         esql.out.println("9. < Return to main menu");
+
+         switch (readChoice(esql)) {
+            case 1: //update favorite items
+               try {
+                  String favoriteItem;
+                  esql.out.print("Select your favorite item:\n");
+
+                  // list all items on the menu
+                  List<MenuItem> items = esql.getMenu();
+                  for (int i = 0; i < items.size(); i++) {
+                     esql.out.println((i + 1) + ". " + items.get(i).itemName);
+                  }
+
+                  // get user choice and check for validation
+                  int choice = readChoice(esql);
+                  if (choice < 1 || choice > items.size()) {
+                     esql.out.println("Invalid choice. Please select a valid item.");
+                     break;
+                  }
+                  favoriteItem = items.get(choice - 1).itemName;
+
+                  // update the user's favorite item
+                  String update_query = "UPDATE Users SET favoriteItems = ? WHERE login = ?;";
+                  esql.executeUpdate(update_query, favoriteItem, login);
+                  esql.out.println("Favorite item updated successfully to " + favoriteItem + ".");
+               } catch (Exception e) {
+                  esql.out.println("An error occurred while updating favorite items: " + e.getMessage());
+               }
+               break;
+            case 2: //update phone number
+               try {
+                  String phoneNum;
+                  esql.out.print("Enter phone number: ");
+                  phoneNum = esql.in.readLine().trim();
+
+                  // validate phone number
+                  String phoneRegex = "^\\d{3}-\\d{3}-\\d{4}$";
+                  if (phoneNum.isEmpty()) {
+                     esql.out.println("Error: Phone number cannot be empty.");
+                     break;
+                  }
+                  if (!phoneNum.matches(phoneRegex)) {
+                     esql.out.println("Error: Phone number must be in the format XXX-XXX-XXXX.");
+                     break;
+                  }
+
+                  String update_query = "UPDATE Users SET phoneNum = ? WHERE login = ?;";
+                  esql.executeUpdate(update_query, phoneNum, login);
+                  esql.out.println("Phone number updated successfully.");
+               } catch (Exception e) {
+                  esql.out.println("An error occurred while updating phone number: " + e.getMessage());
+               }
+               break;
+            case 3: //update password
+               try {
+                  String password;
+                  esql.out.print("Enter new password: ");
+                  password = esql.in.readLine().trim();
+
+                  // validate password
+                  if (Passwords.tooLong(password) || password.isEmpty()) {
+                     esql.out.println(Passwords.LENGTH_ERROR);
+                     break;
+                  }
+
+                  String update_query = "UPDATE Users SET password = ? WHERE login = ?;";
+                  esql.executeUpdate(update_query, Passwords.hash(password), login);
+                  esql.out.println("Password updated successfully.");
+               } catch (Exception e) {
+                  esql.out.println("An error occurred while updating password: " + e.getMessage());
+               }
+               break;
+            case 9:
+               update_menu = false;
+               break;
+            default:
+               esql.out.println("Unrecognized choice!");
+               break;
+         }
+      }
+   }
+
+   /**
+    * Allows the user to view all the items on the menu.
+    * Users can filter by item type (using the typeOfItem column) and/or
+    * by a maximum price. They can also choose to sort the results by price 
+    * in ascending (lowest to highest) or descending (highest to lowest) order.
+    * The results are displayed in a nicely formatted table.
+    */
+   public static void viewMenu(PizzaStore esql) {
+      try {
+         // Prompt for filtering by item type
+         esql.out.println("Select item type to filter by or press Enter to skip:");
+         esql.out.println("1. Entree");
+         esql.out.println("2. Sides");
+         esql.out.println("3. Drinks");
+         String typeChoice = esql.in.readLine().trim();
+         String typeFilter = "";
+         if (!typeChoice.isEmpty()) {
+            try {
+               int choice = Integer.parseInt(typeChoice);
+               switch(choice) {
+                     case 1: 
+                        typeFilter = "entree";
+                        break;
+                     case 2: 
+                        typeFilter = "sides";
+                        break;
+                     case 3: 
+                        typeFilter = "drinks";
+                        break;
+                     default:
+                        esql.out.println("Invalid choice. No type filter will be applied.");
+                        break;
+               }
+            } catch (NumberFormatException e) {
+                  esql.out.println("Invalid input. No type filter will be applied.");
+            }
+         }
+
+         // Prompt for filtering by maximum price
+         esql.out.print("Enter maximum price to filter by or press Enter to skip: ");
+         String priceInput = esql.in.readLine().trim();
+         Double maxPrice = null;
+         if (!priceInput.isEmpty()) {
+            try {
+                  maxPrice = Double.parseDouble(priceInput);
+            } catch (NumberFormatException nfe) {
+                  esql.out.println("Invalid price entered. Price filter will be ignored.");
+            }
+         }
+
+         // Prompt for sorting option
+         esql.out.println("Sort by price? (Press Enter to skip sorting)");
+         esql.out.println("1. Ascending (lowest to highest)");
+         esql.out.println("2. Descending (highest to lowest)");
+         String sortInput = esql.in.readLine().trim();
+         int sortChoice = 3; // default: no sorting
+         if (!sortInput.isEmpty()) {
+            try {
+               sortChoice = Integer.parseInt(sortInput);
+            } catch (NumberFormatException e) {
+               esql.out.println("Invalid input. No sorting will be applied.");
+               sortChoice = 3;
+            }
+         }
+
+         // Filter the cached menu by item type and maximum price.
+         List<MenuItem> results = new ArrayList<>();
+         for (MenuItem item : esql.getMenu()) {
+            if (!typeFilter.isEmpty() && !item.typeOfItem.trim().equals(typeFilter)) {
+               continue;
+            }
+            if (maxPrice != null && item.price.doubleValue() > maxPrice) {
+               continue;
+            }
+            results.add(item);
+         }
+
+         // Sort by price based on the user's sorting choice.
+         if (sortChoice == 1) {
+            results.sort(Comparator.comparing((MenuItem item) -> item.price));
+         } else if (sortChoice == 2) {
+            results.sort(Comparator.comparing((MenuItem item) -> item.price).reversed());
+         }
+
+         // If no items found, notify the user.
+         if (results.size() == 0) {
+            esql.out.println("No items match your search criteria.");
+            return;
+         }
+
+         // Define the formatted table style similar to the profile output.
+         String line = "+--------------------------------+-----------------+----------+------------------------------------------+";
+         esql.out.println(line);
+         esql.out.printf("| %-30s | %-15s | %-8s | %-40s |\n", "Item Name", "Type", "Price", "Description");
+         esql.out.println(line);
+
+         // Print each item row in the formatted table.
+         for (MenuItem item : results) {
+            String itemName = item.itemName;
+            String itemType = item.typeOfItem;
+            String price = item.price.toPlainString();
+            String description = item.description == null ? "" : item.description;
+            // Truncate description if it's too long.
+            if (description.length() > 40) {
+                  description = description.substring(0, 37) + "...";
+            }
+            esql.out.printf("| %-30s | %-15s | %-8s | %-40s |\n", itemName, itemType, price, description);
+         }
+         esql.out.println(line);
+      } catch (Exception e) {
+         esql.out.println("An error occurred while viewing the menu: " + e.getMessage());
+      }
+   }
+
+   /**
+    * Place an order for the current user.
+    * The user can order any item from the menu. User should first be asked which
+    * store they want to order from. User will be asked to input every itemName and quantity
+    * (the amount of each item they want) for each item they want to order. The total price of
+    * their order should be returned and output to the user. After placing the order, the order
+    * information needs to be inserted in the FoodOrder table with a unique orderID (and
+    * make sure you include the store they ordered at). Each itemName, orderID, and the
+    * corresponding quantity should be inserted into the ItemsInOrder table for every item in
+    * the order.
+    */
+   public static void placeOrder(PizzaStore esql) {
+      try {
+         // Let the user narrow down the stores, then display them a page at a time
+         StoreFilter filter = readStoreFilter(esql);
+         esql.out.println("Available Stores:");
+         int storeCount = showPages(esql, esql.searchStores(filter, STORE_PAGE_SIZE), stores -> {
+            for (List<String> store : stores) {
+               esql.out.printf("StoreID: %s, Address: %s, %s, %s\n",
+                                 store.get(0), store.get(1), store.get(2), store.get(3));
+            }
+         });
+         if (storeCount == 0) {
+            esql.out.println("No stores match your search.");
+            return;
+         }
+         
+         // Ask user to choose a store
+         esql.out.print("Enter the storeID you want to order from: ");
+         String storeInput = esql.in.readLine().trim();
+         int storeID = Integer.parseInt(storeInput);
+         // Verify store exists
+         String checkStore = "SELECT 1 FROM Store WHERE storeID = ? LIMIT 1;";
+         if (!esql.executeExists(checkStore, storeID)) {
+               esql.out.println("Invalid store ID. Order cancelled.");
+               return;
+         }
+         
+         // Prepare to collect order items, adding up the quantities of items picked more than once
+         Map<String, Integer> items = new LinkedHashMap<>();
+         
+         // Prompt user to add items until they enter a blank item name.
+         while (true) {
+               // Retrieve all available menu items.
+               List<MenuItem> menuItems = esql.getMenu();
+               if (menuItems.size() == 0) {
+                  esql.out.println("No menu items available at the moment.");
+                  break; // or return, depending on the context
+               }
+
+               // Display available menu items.
+               esql.out.println("Available Menu Items:");
+               for (int i = 0; i < menuItems.size(); i++) {
+                  esql.out.println((i + 1) + ". " + menuItems.get(i).itemName);
+               }
+
+               // Ask the user to pick an item from the list.
+               esql.out.print("Select the number corresponding to the item you want to order (or press ENTER to finish): ");
+               String input = esql.in.readLine().trim();
+               if (input.isEmpty()) {
+                  break; // exit the loop if the user is done ordering
+               }
+
+               int choice;
+               try {
+                  choice = Integer.parseInt(input);
+               } catch (NumberFormatException e) {
+                  esql.out.println("Invalid input. Please enter a valid number.");
+                  continue; // prompt the user again
+               }
+
+               if (choice < 1 || choice > menuItems.size()) {
+                  esql.out.println("Invalid choice. Please try again.");
+                  continue;
+               }
+
+               // Retrieve the selected item name.
+               String itemName = menuItems.get(choice - 1).itemName;
+               esql.out.print("Enter quantity for " + itemName + ": ");
+               String qtyStr = esql.in.readLine().trim();
+               int quantity = Integer.parseInt(qtyStr);
+               if (quantity <= 0) {
+                  esql.out.println("Quantity must be positive. Try again.");
+                  continue;
+               }
+               // Add valid item and quantity to the order.
+               items.merge(itemName, quantity, Integer::sum);
+         }
+         
+         // Check that at least one item was ordered.
+         if (items.size() == 0) {
+               esql.out.println("No items ordered. Order cancelled.");
+               return;
+         }
+         
+         // Insert the order and its items into the FoodOrder and ItemsInOrder tables in one transaction;
+         // the server prices the order while inserting it.
+         PlacedOrder order = esql.insertOrder(storeID, items);
+         
+         // Output the total price to the user.
+         esql.out.println("Order placed successfully!");
+         esql.out.println("Your total price is: $" + String.format("%.2f", order.totalPrice));
+         
+      } catch (Exception e) {
+         esql.out.println("An error occurred while placing the order: " + e.getMessage());
+      }
+   }
+
+   /*
+      View info about all user's order. Customers can only see their own order info.
+      Managers and drivers can view all orders of a specific user.
+   */
+   public static void viewAllOrders(PizzaStore esql) {
+      try {
+         //Get role of current user
+         String curr_user_login = esql.getCurrentUser();
+         String user_role = esql.getUserRole(curr_user_login);
+
+         String order_login = curr_user_login; //customers see their own orders
+         if (!user_role.equals(String.format("customer"))) { //if current user is a manager or driver
+            esql.out.print("Input user login: ");
+            order_login = esql.in.readLine().trim();
+
+            //check if user exists
+            String check_user_query = "SELECT 1 FROM Users WHERE login = ? LIMIT 1";
+            if (!esql.executeExists(check_user_query, order_login)) {
+               esql.out.println("User does not exist");
+               return;
+            }
+         }
+
+         // only the orderIDs are shown, so FoodOrder is read through the (login, orderTimestamp, orderID)
+         // index without joining the items; the monthly partitions are read oldest first until the page is full
+         String food_order_query = "SELECT orderID, orderTimestamp FROM FoodOrder WHERE (orderTimestamp, orderID) > (?, ?) AND login = ? ORDER BY orderTimestamp, orderID LIMIT ?";
+
+         //print out the orders a page at a time
+         String line = "+----------------------+------------------------------------------+";
+         KeysetPager pager = new KeysetPager(esql, food_order_query, new int[] { 1, 0 },
+            new Object[] { FIRST_ORDER_TIMESTAMP, Integer.MIN_VALUE }, ORDER_PAGE_SIZE, order_login);
+         int count = showPages(esql, pager, orders -> {
+            for (List<String> order : orders) {
+               esql.out.println(line);
+               esql.out.printf("| %-20s | %-40s |\n", "Field", "Value");
+               esql.out.println(line);
+               esql.out.printf("| %-20s | %-40s |\n", "OrderID", order.get(0));
+               esql.out.println(line);
+            }
+         });
+         if (count <= 0) {
+            esql.out.println("No orders in history");
+         }
+
+         return;
+      }catch(Exception e) {
+         esql.out.println("An error occured when while viewing an order: " + e.getMessage());
+      }
+   }
+
+   /*
+      View your recent 5 orders 
+   */
+   public static void viewRecentOrders(PizzaStore esql) {
+      try {
+         // the newest orderIDs are read backwards off the (login, orderTimestamp, orderID) index, newest partition first
+         String recent_order =
+            "SELECT orderID FROM FoodOrder WHERE login = ? ORDER BY orderTimestamp DESC, orderID DESC LIMIT ?";
+         List<List<String>> recent_orders = esql.executeQueryAndReturnResult(recent_order, esql.getCurrentUser(), RECENT_ORDER_COUNT);
+         if (recent_orders.size() <= 0) {
+            esql.out.println("No orders in history");
+            return;
+         }
+
+         //print out the orders 
+         for (List<String> order : recent_orders) {
+            String id = order.get(0);
+
+            String line = "+----------------------+------------------------------------------+";
+            esql.out.println(line);
+            esql.out.printf("| %-20s | %-40s |\n", "Field", "Value");
+            esql.out.println(line);
+            esql.out.printf("| %-20s | %-40s |\n", "OrderID", id);
+            esql.out.println(line);
+         }
+      }catch(Exception e) {
+         esql.out.println("An error occured when while viewing the 5 recent orders: " + e.getMessage());
+      }
+   }//end viewRecentOrders
+
+   /**
+    * Groups the flat (orderID, orderTimestamp, totalPrice, orderStatus, itemName, quantity)
+    * rows returned by the order queries into one record per order of the form
+    * (orderID, orderTimestamp, totalPrice, orderStatus, itemName, quantity, itemName, quantity, ...).
+    * The rows must be sorted by orderID. An order without items comes as a
+    * single row with a null itemName, from a LEFT JOIN, and has no item pairs.
+    *
+    * @param rows the joined FoodOrder/ItemsInOrder rows
+    * @return one record per order
+    */
+   public static List<List<String>> groupOrderRows(List<List<String>> rows) {
+      List<List<String>> individual_orders = new ArrayList<>();
+      List<String> each_order = null;
+      for (List<String> row : rows) {
+         if (each_order == null || !row.get(0).equals(each_order.get(0))) {
+            each_order = new ArrayList<>();
+            each_order.add(row.get(0));
+            each_order.add(row.get(1));
+            each_order.add(row.get(2));
+            each_order.add(row.get(3).trim());
+            individual_orders.add(each_order);
+         }
+         if (row.get(4) != null) {
+            each_order.add(row.get(4));
+            each_order.add(row.get(5));
+         }
+      }
+      return individual_orders;
+   }
+
+   /**
+    * Prints the details of a single order grouped by groupOrderRows.
+    * @param order the grouped order record
+    */
+   public static void printOrderDetails(PizzaStore esql, List<String> order) {
+      String line = "+----------------------+------------------------------------------+";
+      esql.out.println(line);
+      esql.out.printf("| %-20s | %-40s |\n", "Field", "Value");
+      esql.out.println(line);
+      esql.out.printf("| %-20s | %-40s |\n", "OrderID", order.get(0));
+      esql.out.printf("| %-20s | %-40s |\n", "Order Timestamp", order.get(1));
+      esql.out.printf("| %-20s | %-40s |\n", "Total Price", order.get(2));
+      esql.out.printf("| %-20s | %-40s |\n", "Order Status", order.get(3));
+      esql.out.printf("| %-20s | %-40s |\n", "", "");
+      esql.out.println(line);
+      if (order.size() < 6) {
+         esql.out.printf("| %-20s | %-40s |\n", "Items - Quantity", "(no items)");
+      }
+      for (int j = 4; j < order.size() - 1; j = j + 2) {
+         esql.out.printf("| %-20s | %-40s |\n", j == 4 ? "Items - Quantity" : "", order.get(j) + " x " + order.get(j + 1));
+      }
+      esql.out.println(line);
+   }
+
+   /*
+      View your a specific order based on a provided orderID (customers can only view their own and managers/drivers can view any)
+   */
+   public static void viewOrderInfo(PizzaStore esql) {
+      try {
+         //Get role of current user
+         String curr_user_login = esql.getCurrentUser();
+         String user_role = esql.getUserRole(curr_user_login);
+
+         if (user_role.equals(String.format("customer"))) { //if customer, only look up orders placed by this login
+            esql.out.print("Provide the orderID of the order you want to look at: ");
+            int order_id = Integer.parseInt(esql.in.readLine().trim());
+
+            List<List<String>> order_rows = esql.getOrderRows(order_id, curr_user_login);
+            if (order_rows.size() <= 0) {
+               esql.out.println("No order with that orderID in your history");
+               return;
+            }
+            printOrderDetails(esql, groupOrderRows(order_rows).get(0));
+         }
+         else { //if current user is a manager or driver
+            esql.out.println("1. Look up an order by orderID");
+            esql.out.println("2. Browse all orders");
+            switch (readChoice(esql)) {
+               case 1:
+                  esql.out.print("Provide the orderID of the order you want to look at: ");
+                  int order_id = Integer.parseInt(esql.in.readLine().trim());
+
+                  List<List<String>> order_rows = esql.getOrderRows(order_id, null);
+                  if (order_rows.size() <= 0) {
+                     esql.out.println("Error: Order does not exist.");
+                     return;
+                  }
+                  printOrderDetails(esql, groupOrderRows(order_rows).get(0));
+                  break;
+               case 2:
+                  // fetch ORDER_PAGE_SIZE orders with their items at a time
+                  // in (orderTimestamp, orderID) order, so a page reads the partitions of its months only;
+                  // the page is cut from FoodOrder alone, so an order without items still counts as a key
+                  String page_query =
+                     "SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM (SELECT orderID, orderTimestamp, totalPrice, orderStatus FROM FoodOrder WHERE (orderTimestamp, orderID) > (?, ?) ORDER BY orderTimestamp, orderID LIMIT ?) F LEFT JOIN ItemsInOrder I ON F.orderID = I.orderID AND F.orderTimestamp = I.orderTimestamp ORDER BY F.orderTimestamp, F.orderID";
+                  KeysetPager pager = new KeysetPager(esql, page_query, new int[] { 1, 0 },
+                     new Object[] { FIRST_ORDER_TIMESTAMP, Integer.MIN_VALUE }, ORDER_PAGE_SIZE);
+                  int shown = showPages(esql, pager, rows -> {
+                     for (List<String> order : groupOrderRows(rows)) {
+                        printOrderDetails(esql, order);
+                     }
+                  });
+                  if (shown <= 0) {
+                     esql.out.println("No orders in history");
+                  }
+                  break;
+               default:
+                  esql.out.println("Unrecognized choice!");
+                  break;
+            }
+         }
+
+         return;
+      }catch(NumberFormatException e) {
+         esql.out.println("Error: orderID must be a number.");
+      }catch(Exception e) {
+         esql.out.println("An error occured when while viewing an order: " + e.getMessage());
+      }
+   }//end viewOrderInfo
+
+   /**
+    * Customers should be able to view the list of all stores. They should see all
+    * information about the location of the store, the storeID, the review score, and whether or
+    * not it is open
+    */
+    public static void viewStores(PizzaStore esql) {
+      try {
+         StoreFilter filter = readStoreFilter(esql);
+
+         // Define a formatted table header
+         String line = "+---------+-----------------------------+--------------------+----------------------+-------------+---------+";
+
+         // Print the matching stores a page at a time
+         int storeCount = showPages(esql, esql.searchStores(filter, STORE_PAGE_SIZE), stores -> {
+            esql.out.println(line);
+            esql.out.printf("| %-7s | %-27s | %-18s | %-20s | %-11s | %-7s |\n", 
+                               "StoreID", "Address", "City", "State", "ReviewScore", "IsOpen");
+            esql.out.println(line);
+            for (List<String> store : stores) {
+               String reviewScoreStr = store.get(4);
+
+               // Convert review score from string to double
+               double reviewScore = reviewScoreStr == null ? 0 : Double.parseDouble(reviewScoreStr);
+               // Assume review score is out of 5.
+               int fullStars = (int) reviewScore;
+               int emptyStars = 5 - fullStars;
+               StringBuilder stars = new StringBuilder();
+               for (int i = 0; i < fullStars; i++) {
+                  stars.append("★");
+               }
+               for (int i = 0; i < emptyStars; i++) {
+                  stars.append("☆");
+               }
+
+               esql.out.printf("| %-7s | %-27s | %-18s | %-20s | %-11s | %-7s |\n", 
+                                 store.get(0), store.get(1), store.get(2), store.get(3), stars.toString(), store.get(5));
+            }
+            esql.out.println(line);
+         });
+         if (storeCount == 0) {
+            esql.out.println("No stores match your search.");
+         }
+      } catch (Exception e) {
+         esql.out.println("An error occurred while viewing stores: " + e.getMessage());
+      }
+   }
+
+   /**
+    * Asks for the criteria of a store search. Every criterion can be skipped
+    * by pressing Enter.
+    *
+    * @return the criteria entered
+    * @throws java.io.IOException when the terminal was closed
+    */
+   public static StoreFilter readStoreFilter(PizzaStore esql) throws IOException {
+      StoreFilter filter = new StoreFilter();
+      esql.out.println("Search stores (press Enter to skip a criterion)");
+      esql.out.print("City: ");
+      filter.city = emptyToNull(esql.in.readLine());
+      esql.out.print("State: ");
+      filter.state = emptyToNull(esql.in.readLine());
+      esql.out.print("Only open stores? (y/N): ");
+      filter.openOnly = "y".equalsIgnoreCase(emptyToNull(esql.in.readLine()));
+      esql.out.print("Minimum review score (1-5): ");
+      String minScore = emptyToNull(esql.in.readLine());
+      if (minScore != null) {
+         try {
+            filter.minReviewScore = Double.parseDouble(minScore);
+         }catch (NumberFormatException e) {
+            esql.out.println("Invalid score entered. Review score filter will be ignored.");
+         }
+      }
+      return filter;
+   }
+
+   // a line of input trimmed, or null when nothing was entered
+   private static String emptyToNull(String input) throws IOException {
+      if (input == null) {
+         throw new EOFException("The terminal was closed");
+      }
+      input = input.trim();
+      return input.isEmpty() ? null : input;
+   }
+
+   /**
+    * Shows the pages of a pager one at a time, asking before each further
+    * page, until the user quits or every row has been shown.
+    *
+    * @param pager the rows to show
+    * @param printPage prints the rows of one page
+    * @return the number of rows shown
+    * @throws java.sql.SQLException when a page could not be read
+    * @throws java.io.IOException when the terminal was closed
+    */
+   public static int showPages(PizzaStore esql, KeysetPager pager, Consumer<List<List<String>>> printPage) throws SQLException, IOException {
+      int shown = 0;
+      while (true) {
+         List<List<String>> page = pager.next();
+         if (page.isEmpty()) {
+            return shown;
+         }
+         printPage.accept(page);
+         shown += page.size();
+         if (!pager.hasNext()) {
+            return shown;
+         }
+         esql.out.print("Press ENTER to see more results or type 'q' to quit: ");
+         if ("q".equalsIgnoreCase(emptyToNull(esql.in.readLine()))) {
+            return shown;
+         }
+      }
+   }
+
+   /**
+    * Prints the items and their prices in itemName order, a page at a time.
+    */
+   private static void printItemPages(PizzaStore esql) throws SQLException, IOException {
+      String item_query = "SELECT itemName, price FROM Items WHERE itemName > ? ORDER BY itemName LIMIT ?";
+      String line = "+------------------------------------------+----------------------+"; //rbandyo,cpendreigho
+      showPages(esql, new KeysetPager(esql, item_query, 0, "", ITEM_PAGE_SIZE), items -> {
+         esql.out.println(line);
+         esql.out.printf("| %-40s | %-20s |\n", "Item", "Price");
+         esql.out.println(line);
+         for (List<String> item : items) {
+            esql.out.printf("| %-40s | %-20s |\n", item.get(0), item.get(1));
+         }
+         esql.out.println(line);
+      });
+   }
+
+   /**
+    * Update the Order Status of a given orderID (must be driver or manager)
+   */
+   public static void updateOrderStatus(PizzaStore esql) {
+      try {
+         String curr_user_login = esql.getCurrentUser();
+         String user_role = esql.getUserRole(curr_user_login); // check if role is not customer
+
+         if (user_role.equals(String.format("driver")) || user_role.equals(String.format("manager"))) {
+            int update_orderid; //get order id to update
+            esql.out.print("Order ID: ");
+            try {
+               update_orderid = Integer.parseInt(esql.in.readLine().trim());
+            } catch (NumberFormatException e) {
+               esql.out.println("Error: Order ID must be a number.\n");
+               return;
+            }
+
+            OrderState order = esql.getOrder(update_orderid);
+            if (order == null) { //check if order exist
+               esql.out.println("Error: Order does not exist.\n");
+               return;
+            }
+            String current_status = order.orderStatus;
+
+            // drivers only move the orders they claimed, managers any order
+            String driver = null;
+            if (user_role.equals("driver")) {
+               driver = curr_user_login;
+               String holder = order.driverLogin;
+               if (holder == null) {
+                  esql.out.println("Error: Order " + update_orderid + " is not claimed, claim it from the queue of its store first.\n");
+                  return;
+               }
+               if (!holder.equals(curr_user_login)) {
+                  esql.out.println("Error: Order " + update_orderid + " is claimed by " + holder + ".\n");
+                  return;
+               }
+            }
+
+            // an order only moves forward, one status at a time
+            String update_status = nextOrderStatus(current_status);
+            if (update_status == null) {
+               esql.out.println("Order " + update_orderid + " is already complete.\n");
+               return;
+            }
+
+            esql.out.println(String.format("Order %s is %s.", update_orderid, current_status));
+            esql.out.println("1. Mark as " + update_status);
+            esql.out.println("2. Cancel");
+            if (readChoice(esql) != 1) {
+               return;
+            }
+
+            if (!esql.advanceOrderStatus(update_orderid, order.orderTimestamp, current_status, driver)) {
+               esql.out.println("Error: Order " + update_orderid + " was updated by someone else, it is now " + esql.getOrderStatus(update_orderid, order.orderTimestamp) + ".\n");
+               return;
+            }
+
+            esql.out.println("Order status for order " + update_orderid + " updated successfully to " + update_status + ".\n"); 
+
+            return; 
+         }
+      }catch(Exception e) {
+            esql.out.println("An error occured when while updating the order status: " + e.getMessage());   
+      }
+   }// end updateOrderStatus
+
+   /**
+    * Shows the queue of orders of a store that are not complete yet, oldest
+    * first, so drivers and managers can see what to prepare and deliver next
+    * (must be driver or manager)
+    */
+   public static void viewOpenOrders(PizzaStore esql) {
+      try {
+         String user_role = esql.getUserRole(esql.getCurrentUser());
+         if (!user_role.equals("driver") && !user_role.equals("manager")) {
+            esql.out.println("Only drivers and managers can view the open orders of a store.\n");
+            return;
+         }
+
+         esql.out.print("Store ID: ");
+         int storeID = Integer.parseInt(esql.in.readLine().trim());
+
+         int shown = showPages(esql, esql.openOrders(storeID, OPEN_ORDER_PAGE_SIZE), orders -> printOpenOrders(esql, orders));
+         if (shown == 0) {
+            esql.out.println("Store " + storeID + " has no open orders.\n");
+            return;
+         }
+         esql.out.println();
+      }catch(NumberFormatException e) {
+         esql.out.println("Error: Store ID must be a number.\n");
+      }catch(Exception e) {
+         esql.out.println("An error occurred while viewing the open orders: " + e.getMessage());
+      }
+   }//end viewOpenOrders
+
+   // prints rows of orderID, orderTimestamp, orderStatus, login, totalPrice, driverLogin as a table
+   private static void printOpenOrders(PizzaStore esql, List<List<String>> orders) {
+      String line = "+---------+---------------------+------------------+----------------------+------------+----------------------+";
+      esql.out.println(line);
+      esql.out.printf("| %-7s | %-19s | %-16s | %-20s | %-10s | %-20s |\n", "OrderID", "Placed", "Status", "Customer", "Total", "Driver");
+      esql.out.println(line);
+      for (List<String> order : orders) {
+         esql.out.printf("| %-7s | %-19.19s | %-16s | %-20s | %-10s | %-20s |\n",
+                           order.get(0), order.get(1), order.get(2), order.get(3), order.get(4), order.get(5) == null ? "" : order.get(5));
+      }
+      esql.out.println(line);
+   }
+
+   /**
+    * Claims the oldest unclaimed open order of a store for the current user,
+    * who then delivers it and moves it along with Update Order Status. Drivers
+    * claiming from the same store at once each get a different order
+    * (must be driver or manager)
+    */
+   public static void claimNextOrder(PizzaStore esql) {
+      try {
+         String user_role = esql.getUserRole(esql.getCurrentUser());
+         if (!user_role.equals("driver") && !user_role.equals("manager")) {
+            esql.out.println("Only drivers and managers can claim orders.\n");
+            return;
+         }
+
+         esql.out.print("Store ID: ");
+         int storeID = Integer.parseInt(esql.in.readLine().trim());
+
+         List<String> order = esql.claimNextOrder(storeID, esql.getCurrentUser());
+         if (order == null) {
+            esql.out.println("Store " + storeID + " has no unclaimed open orders.\n");
+            return;
+         }
+         esql.out.println("You claimed order " + order.get(0) + ":");
+         printOpenOrders(esql, Collections.singletonList(order));
+         esql.out.println();
+      }catch(NumberFormatException e) {
+         esql.out.println("Error: Store ID must be a number.\n");
+      }catch(Exception e) {
+         esql.out.println("An error occurred while claiming an order: " + e.getMessage());
+      }
+   }//end claimNextOrder
+
+   /*
+      Managers can update the information of any item in the menu given the itemName and add in new items.
+   */
+   public static void updateMenu(PizzaStore esql) {
+      try {
+         String curr_user_login = esql.getCurrentUser();
+         String user_role = esql.getUserRole(curr_user_login);
+
+         if (user_role.equals(String.format("manager"))) {
+            printItemPages(esql);
+            esql.out.println("MENU UPDATE");
+            esql.out.println("-----------");
+            esql.out.println("1. Update an existing item");
+            esql.out.println("2. Add a new item");
+            esql.out.println("9. < EXIT");
+            switch(readChoice(esql)) {//rbandyo,cpendreigho
+               case 1:
+                  String update_item;
+                  esql.out.print("Select an item to update: ");
+                  update_item = esql.in.readLine().trim();
+                  String check_item = "SELECT 1 FROM Items WHERE itemName = ? LIMIT 1";
+                  if (!esql.executeExists(check_item, update_item)) {
+                     esql.out.println(String.format("%s is not on the menu", update_item));
+                     break;
+                  }
+                  esql.out.println("ITEM UPDATE");
+                  esql.out.println("-----------");
+                  esql.out.println("1. Update item name");
+                  esql.out.println("2. Update item ingredients");
+                  esql.out.println("3. Update item type");
+                  esql.out.println("4. Update item price");
+                  esql.out.println("5. Update item description");
+                  esql.out.println("9. < EXIT");
+                  switch(readChoice(esql)) {
+                     case 1:
+                        String new_item_name;
+                        esql.out.print(String.format("Provide a new name for %s: ", update_item));
+                        new_item_name = esql.in.readLine().trim();
+                        String check_item2 = "SELECT 1 FROM Items WHERE itemName = ? LIMIT 1";
+                        if (esql.executeExists(check_item2, new_item_name)) {
+                           esql.out.println(String.format("%s is already on the menu", new_item_name));
+                           break;
+                        }
+                        String update_name = "UPDATE Items SET itemName = ? WHERE itemName = ?";
+                        esql.executeUpdate(update_name, new_item_name, update_item);
+                        esql.out.println(String.format("%s is now %s", update_item, new_item_name));
+                        break;
+                     case 2:
+                        String new_item_ingredients;
+                        List<List<String>> curr_ingredients = esql.executeQueryAndReturnResult("SELECT ingredients FROM Items WHERE itemName = ?", update_item);
+                        esql.out.println(String.format("Current ingredients for %s: %s", update_item, curr_ingredients.get(0).get(0)));
+                        esql.out.print(String.format("Provide updated ingredients for %s (separated by commas): ", update_item));
+                        new_item_ingredients = esql.in.readLine().trim();
+                        new_item_ingredients = String.format("\"%s\"", new_item_ingredients);
+                        String update_ingredients = "UPDATE Items SET ingredients = ? WHERE itemName = ?";
+                        esql.executeUpdate(update_ingredients, new_item_ingredients, update_item);
+                        esql.out.println(String.format("%s's is now %s", update_item, new_item_ingredients));
+                        break;
+                     case 3:
+                        List<List<String>> curr_type = esql.executeQueryAndReturnResult("SELECT typeOfItem FROM Items WHERE itemName = ?", update_item);
+                        String update_type = "UPDATE Items SET typeOfItem = ? WHERE itemName = ?";
+                        String new_type = "";
+                        esql.out.println(String.format("UPDATE %s FROM %s TO: ", update_item, curr_type.get(0).get(0).trim()));
+                        esql.out.println("-----------");
+                        esql.out.println("1. entree");
+                        esql.out.println("2. drinks");
+                        esql.out.println("3. sides");
+                        switch(readChoice(esql)) {
+                           case 1:
+                              new_type = " entree";
+                              break;
+                           case 2:
+                              new_type = " drinks";
+                              break;
+                           case 3:
+                              new_type = " sides";
+                              break;
+                           default:
+                              esql.out.println("Invalid choice");
+                              return;
+                        }
+                        esql.executeUpdate(update_type, new_type, update_item);
+                        break;
+                     case 4:
+                        double new_item_price = 0.0;
+                        esql.out.print(String.format("Provide a new price for %s", update_item));
+                        try {
+                           new_item_price = Double.parseDouble(esql.in.readLine().trim());
+                        }catch(Exception e) {
+                           esql.out.println("Invalid input: " + e.getMessage());
+                        }
+                        String update_price = "UPDATE Items SET price = ? WHERE itemName = ?";
+                        esql.executeUpdate(update_price, new_item_price, update_item);
+                        esql.out.println(String.format("%s is now %f", update_item, new_item_price));
+                        break;
+                     case 5:
+                        String new_item_description;
+                        List<List<String>> curr_description = esql.executeQueryAndReturnResult("SELECT description FROM Items WHERE itemName = ?", update_item);
+                        esql.out.println(String.format("Current description for %s: %s", update_item, curr_description.get(0).get(0)));
+                        esql.out.print(String.format("Provide updated decription for %s : ", update_item));
+                        new_item_description = esql.in.readLine().trim();
+                        new_item_description = String.format("\"%s\"", new_item_description);
+                        String update_description = "UPDATE Items SET description = ? WHERE itemName = ?";
+                        esql.executeUpdate(update_description, new_item_description, update_item);
+                        break;
+                     case 9:
+                        break;
+                     default:
+                        esql.out.println("Invalid choice");
+                        break;
+                  }
+                  break;
+               case 2:
+                  String new_item_name;
+                  String new_item_ingredients;
+                  String new_item_type;
+                  double new_item_price = 0.0;
+                  String new_item_description;
+                  
+                  esql.out.print("Provide the new item's name: ");
+                  new_item_name = esql.in.readLine().trim();
+                  if (esql.executeExists("SELECT 1 FROM Items WHERE itemName = ? LIMIT 1", new_item_name)) {
+                     esql.out.println("Item is already on the menu");
+                     return;
+                  }
+                  esql.out.print("Provide the new item's ingredients (separated by commas): ");
+                  new_item_ingredients = esql.in.readLine().trim();
+                  new_item_ingredients = String.format("\"%s\"", new_item_ingredients);
+
+                  esql.out.println("Provide the new item's type: ");
+                  esql.out.println("1. entree");
+                  esql.out.println("2. drinks");
+                  esql.out.println("3. sides");
+                  switch(readChoice(esql)) {
+                     case 1:
+                        new_item_type = " entree";
+                        break;
+                     case 2:
+                        new_item_type = " drinks";
+                        break;
+                     case 3:
+                        new_item_type = " sides";
+                        break;
+                     default:
+                        esql.out.println("Invalid choice");
+                        return;
+                  }
+
+                  esql.out.print("Provide the new item's price: ");
+                  try {
+                     new_item_price = Double.parseDouble(esql.in.readLine().trim());
+                  }catch(Exception e) {
+                     esql.out.println("Invalid input: " + e.getMessage());
+                  }
+
+                  esql.out.print("Provide a description of the new item: ");
+                  new_item_description = esql.in.readLine().trim();
+                  new_item_description = String.format("\"%s\"", new_item_description);
+
+                  String insert_new_item =
+                     "INSERT INTO Items (itemName, ingredients, typeOfItem, price, description) VALUES (?, ?, ?, ?, ?)";
+                  esql.executeUpdate(insert_new_item, new_item_name, new_item_ingredients, new_item_type, new_item_price, new_item_description);
+                  esql.out.println(String.format("%s is now on the menu", new_item_name));
+                  break;
+               case 9:
+                  break;
+               default:
+                  esql.out.println("Invalid choice");
+                  break;
+            }
+            // drop the cached menus so the next reader, here or in another process, sees the change
+            esql.menuChanged();
+            esql.out.println("UPDATED MENU");
+            printItemPages(esql);
+            return;
+         }
+         else {
+            esql.out.println("You are not a manager");
+         }
+
+         return;
+      }catch(Exception e) {
+         esql.out.println("An error occured when updating the menu: " + e.getMessage());
+      }
+   }//end updateMenu
+   
+   /**
+    * Update a user's login and role as a manager
+   */
+   public static void updateUser(PizzaStore esql) {
+      try {
+         String manager_login = esql.getCurrentUser();
+
+         //check if role is manager
+         String check_role_query = "SELECT 1 FROM Users WHERE login = ? AND role = 'manager' LIMIT 1";
+         if (!esql.executeExists(check_role_query, manager_login)) {
+            esql.out.println("Error: Access denied. You must be a manager to update a user.");
+            return;
+         }
+
+         //Pick user you want to update
+         esql.out.print("Enter the login of the user you want to update: ");
+         String update_login = esql.in.readLine().trim();
+
+         //check if user exists
+         String user_exists = "SELECT 1 FROM Users WHERE login = ? LIMIT 1";
+         if (!esql.executeExists(user_exists, update_login)) {
+            esql.out.println("Error: User " + update_login + " does not exist\n");
+            return;
+         }
+
+         boolean update_menu = true;
+         while (update_menu) {
+             //Update menu
+            esql.out.println("UPDATE MENU FOR USER: " + update_login);
+            esql.out.println("-----------");
+            esql.out.println("1. Update user's login");
+            esql.out.println("2. Update user's role");
+            esql.out.println("9. < EXIT");
+
+            switch(readChoice(esql)) {
+               case 1: //new login validation
+                  esql.out.print("New user login: ");
+                  String new_login = esql.in.readLine().trim();
+                  String check_new_login = "SELECT 1 FROM Users WHERE login = ? LIMIT 1";
+                  if (esql.executeExists(check_new_login, new_login)) {
+                     esql.out.println("User login already exists. Please pick another one");
+                     break;
+                  }
+                  String update_login_query = "UPDATE Users SET login = ? WHERE login = ?";
+                  esql.executeUpdate(update_login_query, new_login, update_login);
+                  update_login = new_login; // Update the login identifier for further operations.
+                  esql.out.println("User login updated successfully. New profile:");
+                  printProfileHelper(esql, update_login);
+                  break;
+               case 2: //new user role with numeric selection
+                  //read in new role
+                  esql.out.println("Select new role:");
+                  esql.out.println("1. Customer");
+                  esql.out.println("2. Manager");
+                  esql.out.println("3. Driver");
+                  int roleChoice;
+                  try {
+                     roleChoice = Integer.parseInt(esql.in.readLine().trim());
+                  } catch(NumberFormatException e) {
+                     esql.out.println("Invalid input. Please enter a number.");
+                     break;
+                  }
+                  String new_role = "";
+                  switch(roleChoice) {
+                     case 1:
+                        new_role = "customer";
+                        break;
+                     case 2:
+                        new_role = "manager";
+                        break;
+                     case 3:
+                        new_role = "driver";
+                        break;
+                     default:
+                        esql.out.println("Invalid choice. Please select a valid role.");
+                        break;
+                  }
+                  if(new_role.equals("")) {
+                     break;
+                  }
+                  String update_role_query = "UPDATE Users SET role = ? WHERE login = ?";
+                  esql.executeUpdate(update_role_query, new_role, update_login);
+                  esql.out.println("User role updated successfully. New profile:");
+                  printProfileHelper(esql, update_login);
+                  break;
+               case 9: 
+                  update_menu = false;
+                  break;
+               default : esql.out.println("Unrecognized choice!"); break;
+            }
+         }
+
+         return;
+
+      }catch(Exception e) {
+         esql.out.println("An error occured when while updating a user: " + e.getMessage());
+      }
+   }//end updateUser
+
+   /**
+    * Managers can see the sales of a store, or of all stores, over the last
+    * days up to the latest sale: revenue and average order value per day and
+    * per hour of the latest day, the items sold most and, for all stores, the
+    * stores with the most revenue. The screen first adds the orders placed
+    * since the last refresh to the rollups of create_rollups.sql and then only
+    * reads the rollups, never FoodOrder itself.
+    */
+   public static void viewSalesDashboard(PizzaStore esql) {
+      try {
+         if (!esql.getUserRole(esql.getCurrentUser()).equals("manager")) {
+            esql.out.println("Only managers can view the sales dashboard.\n");
+            return;
+         }
+
+         esql.out.print("Store ID (press Enter for all stores): ");
+         String store = emptyToNull(esql.in.readLine());
+         Integer storeID = store == null ? null : Integer.valueOf(store);
+         esql.out.print("Days (press Enter for " + SALES_DAYS + "): ");
+         String daysInput = emptyToNull(esql.in.readLine());
+         int days = daysInput == null ? SALES_DAYS : Integer.parseInt(daysInput);
+         if (days <= 0) {
+            esql.out.println("Error: Days must be positive.\n");
+            return;
+         }
+
+         esql.refreshSalesRollups();
+         LocalDateTime latest = esql.getLatestSaleHour(storeID);
+         if (latest == null) {
+            esql.out.println("No sales yet.\n");
+            return;
+         }
+         LocalDate to = latest.toLocalDate().plusDays(1);
+         LocalDate from = to.minusDays(days);
+
+         List<List<String>> daily = esql.getDailySales(storeID, from, to);
+         long orders = 0;
+         BigDecimal revenue = BigDecimal.ZERO;
+         for (List<String> day : daily) {
+            orders += Long.parseLong(day.get(1));
+            revenue = revenue.add(new BigDecimal(day.get(2)));
+         }
+         esql.out.println("Sales of " + (storeID == null ? "all stores" : "store " + storeID) + " from " + from + " to " + to.minusDays(1));
+         esql.out.println(String.format("%d orders, revenue %s, average order value %s\n", orders, revenue,
+            orders == 0 ? "-" : revenue.divide(BigDecimal.valueOf(orders), 2, RoundingMode.HALF_UP)));
+
+         esql.out.println("Per day");
+         printTable(esql, new String[] { "Day", "Orders", "Revenue", "Avg Order" }, daily);
+         esql.out.println("Per hour on " + latest.toLocalDate());
+         printTable(esql, new String[] { "Hour", "Orders", "Revenue", "Avg Order" }, esql.getHourlySales(storeID, latest.toLocalDate()));
+         esql.out.println("Top items");
+         printTable(esql, new String[] { "Item", "Units", "Orders" }, esql.getTopItems(storeID, from, to, SALES_TOP_COUNT));
+         if (storeID == null) {
+            esql.out.println("Top stores");
+            printTable(esql, new String[] { "StoreID", "Orders", "Revenue", "Avg Order" }, esql.getTopStores(from, to, SALES_TOP_COUNT));
+         }
+         esql.out.println();
+      }catch(NumberFormatException e) {
+         esql.out.println("Error: Store ID and days must be numbers.\n");
+      }catch(Exception e) {
+         esql.out.println("An error occurred while viewing the sales dashboard: " + e.getMessage());
+      }
+   }//end viewSalesDashboard
+
+   // prints rows as a table, each column as wide as its widest value
+   private static void printTable(PizzaStore esql, String[] headers, List<List<String>> rows) {
+      int[] widths = new int[headers.length];
+      for (int i = 0; i < headers.length; ++i) {
+         widths[i] = headers[i].length();
+         for (List<String> row : rows) {
+            widths[i] = Math.max(widths[i], String.valueOf(row.get(i)).length());
+         }
+      }
+      StringBuilder line = new StringBuilder("+");
+      for (int width : widths) {
+         line.append(String.join("", Collections.nCopies(width + 2, "-"))).append('+');
+      }
+      esql.out.println(line);
+      printTableRow(esql, widths, Arrays.asList(headers));
+      esql.out.println(line);
+      for (List<String> row : rows) {
+         printTableRow(esql, widths, row);
+      }
+      esql.out.println(line);
+   }
+
+   private static void printTableRow(PizzaStore esql, int[] widths, List<String> values) {
+      StringBuilder row = new StringBuilder("|");
+      for (int i = 0; i < widths.length; ++i) {
+         row.append(String.format(" %-" + widths[i] + "s |", values.get(i)));
+      }
+      esql.out.println(row);
+   }
+
+
+   /**
+    * Runs one request of the server mode for the current session and returns
+    * its result rows. A request is a command followed by its arguments:
+    *
+    *    LOGIN login password          log the session in
+    *    LOGOUT                        log the session out
+    *    PROFILE                       favoriteItems, phoneNum, role
+    *    MENU [type [maxPrice]]        itemName, typeOfItem, price, description
+    *    STORES [name=value ...]       the next page of storeID, address, city, state, reviewScore, isOpen
+    *                                  of the stores matching after, city, state, open (yes) and minScore
+    *    PLACE_ORDER storeID item=qty ...   orderID, totalPrice of the new order
+    *    ORDERS [login] [after=id]     the next page of orderID, orderTimestamp of the user, oldest first (another
+    *                                  user's for drivers and managers)
+    *    RECENT_ORDERS                 the newest orderIDs of the user
+    *    ORDER_INFO orderID            orderID, orderTimestamp, totalPrice, orderStatus, itemName, quantity
+    *    UPDATE_STATUS orderID status  move an order to the next status (drivers their claimed orders, managers any)
+    *    OPEN_ORDERS storeID [after=id]   the next page of orderID, orderTimestamp, orderStatus, login, totalPrice,
+    *                                  driverLogin of the orders of the store that are not complete, oldest first
+    *                                  (drivers and managers)
+    *    CLAIM_ORDER storeID           the oldest unclaimed open order of the store, claimed for the user,
+    *                                  as in OPEN_ORDERS; no rows when there is none (drivers and managers)
+    *    SALES [store=id] [days=n]     day, orders, revenue, average order value of the store (or all stores)
+    *                                  over the n days up to its latest sale (managers)
+    *
+    * @param request the command and its arguments
+    * @return the rows answering the request
+    * @throws IllegalArgumentException when the request is malformed or not allowed
+    * @throws java.sql.SQLException when the request failed in the database
+    */
+   public List<List<String>> handleRequest(String[] request) throws SQLException {
+      String command = request[0].toUpperCase();
+      if (!command.equals("LOGIN") && getCurrentUser() == null) {
+         throw new IllegalArgumentException("Log in first");
+      }
+      List<List<String>> rows = new ArrayList<>();
+      switch (command) {
+         case "LOGIN":
+            requireArguments(request, 2);
+            if (!authenticate(request[1], request[2])) {
+               throw new IllegalArgumentException("Incorrect login or password");
+            }
+            setCurrentUser(request[1]);
+            return rows;
+         case "LOGOUT":
+            setCurrentUser(null);
+            return rows;
+         case "PROFILE":
+            return executeQueryAndReturnResult("SELECT favoriteItems, phoneNum, role FROM Users WHERE login = ?;", getCurrentUser());
+         case "MENU":
+            for (MenuItem item : getMenu()) {
+               if (request.length > 1 && !item.typeOfItem.trim().equalsIgnoreCase(request[1])) {
+                  continue;
+               }
+               if (request.length > 2 && item.price.compareTo(new BigDecimal(request[2])) > 0) {
+                  continue;
+               }
+               rows.add(Arrays.asList(item.itemName, item.typeOfItem.trim(), item.price.toPlainString(), item.description));
+            }
+            return rows;
+         case "STORES":
+            int afterStoreID = Integer.MIN_VALUE;
+            StoreFilter filter = new StoreFilter();
+            for (int i = 1; i < request.length; ++i) {
+               int separator = request[i].indexOf('=');
+               String name = separator < 0 ? "" : request[i].substring(0, separator);
+               String value = request[i].substring(separator + 1);
+               switch (name) {
+                  case "after": afterStoreID = Integer.parseInt(value); break;
+                  case "city": filter.city = value; break;
+                  case "state": filter.state = value; break;
+                  case "open": filter.openOnly = value.equalsIgnoreCase("yes"); break;
+                  case "minScore": filter.minReviewScore = Double.parseDouble(value); break;
+                  default: throw new IllegalArgumentException("Unknown store criterion " + request[i]);
+               }
+            }
+            return searchStores(filter, STORE_PAGE_SIZE).startAfter(afterStoreID).next();
+         case "PLACE_ORDER":
+            requireArguments(request, 2);
+            int storeID = Integer.parseInt(request[1]);
+            Map<String, Integer> items = new LinkedHashMap<>();
+            for (int i = 2; i < request.length; ++i) {
+               int separator = request[i].lastIndexOf('=');
+               if (separator <= 0) {
+                  throw new IllegalArgumentException("Items must be given as itemName=quantity");
+               }
+               int quantity = Integer.parseInt(request[i].substring(separator + 1));
+               if (quantity <= 0) {
+                  throw new IllegalArgumentException("Quantity must be positive");
+               }
+               items.merge(request[i].substring(0, separator), quantity, Integer::sum);
+            }
+            PlacedOrder order = insertOrder(storeID, items);
+            rows.add(Arrays.asList(Integer.toString(order.orderID), order.totalPrice.toPlainString()));
+            return rows;
+         case "ORDERS":
+            String login = getCurrentUser();
+            int afterOrderID = Integer.MIN_VALUE;
+            for (int i = 1; i < request.length; ++i) {
+               if (request[i].startsWith("after=")) {
+                  afterOrderID = Integer.parseInt(request[i].substring("after=".length()));
+               } else {
+                  requireRole("driver", "manager");
+                  login = request[i];
+               }
+            }
+            KeysetPager orders = new KeysetPager(this,
+               "SELECT orderID, orderTimestamp FROM FoodOrder WHERE (orderTimestamp, orderID) > (?, ?) AND login = ? ORDER BY orderTimestamp, orderID LIMIT ?",
+               new int[] { 1, 0 }, new Object[] { FIRST_ORDER_TIMESTAMP, Integer.MIN_VALUE }, ORDER_PAGE_SIZE, login);
+            if (afterOrderID != Integer.MIN_VALUE) {
+               // the page continues after the (orderTimestamp, orderID) of the given order
+               List<List<String>> after = executeQueryAndReturnResult(
+                  "SELECT orderTimestamp FROM FoodOrder WHERE orderID = ? AND login = ? " +
+                  "AND orderTimestamp = (SELECT orderTimestamp FROM FoodOrderKey WHERE orderID = ?)", afterOrderID, login, afterOrderID);
+               if (after.isEmpty()) {
+                  throw new IllegalArgumentException("No order " + afterOrderID + " of " + login);
+               }
+               orders.startAfter(Timestamp.valueOf(after.get(0).get(0)), afterOrderID);
+            }
+            return orders.next();
+         case "RECENT_ORDERS":
+            return executeQueryAndReturnResult(
+               "SELECT orderID FROM FoodOrder WHERE login = ? ORDER BY orderTimestamp DESC, orderID DESC LIMIT ?", getCurrentUser(), RECENT_ORDER_COUNT);
+         case "ORDER_INFO":
+            requireArguments(request, 1);
+            String role = getUserRole(getCurrentUser());
+            return getOrderRows(Integer.parseInt(request[1]), role.equals("customer") ? getCurrentUser() : null);
+         case "UPDATE_STATUS":
+            requireArguments(request, 2);
+            requireRole("driver", "manager");
+            int orderID = Integer.parseInt(request[1]);
+            OrderState current = getOrder(orderID);
+            if (current == null) {
+               throw new IllegalArgumentException("Order does not exist");
+            }
+            String status = current.orderStatus;
+            String next = nextOrderStatus(status);
+            if (!request[2].equals(next)) {
+               throw new IllegalArgumentException("Order is " + status + (next == null ? "" : ", it can only move to " + next));
+            }
+            String driver = getUserRole(getCurrentUser()).equals("driver") ? getCurrentUser() : null;
+            if (driver != null && !driver.equals(current.driverLogin)) {
+               throw new IllegalArgumentException("Claim the order before updating it");
+            }
+            if (!advanceOrderStatus(orderID, current.orderTimestamp, status, driver)) {
+               throw new IllegalArgumentException("Order was updated concurrently, it is now " + getOrderStatus(orderID, current.orderTimestamp));
+            }
+            return rows;
+         case "OPEN_ORDERS":
+            requireArguments(request, 1);
+            requireRole("driver", "manager");
+            int openStoreID = Integer.parseInt(request[1]);
+            KeysetPager openOrders = openOrders(openStoreID, OPEN_ORDER_PAGE_SIZE);
+            if (request.length > 2 && request[2].startsWith("after=")) {
+               // the page continues after the (orderTimestamp, orderID) of the given order
+               int afterOpenOrderID = Integer.parseInt(request[2].substring("after=".length()));
+               List<List<String>> after = executeQueryAndReturnResult(
+                  "SELECT orderTimestamp FROM FoodOrder WHERE orderID = ? AND storeID = ? " +
+                  "AND orderTimestamp = (SELECT orderTimestamp FROM FoodOrderKey WHERE orderID = ?)", afterOpenOrderID, openStoreID, afterOpenOrderID);
+               if (after.isEmpty()) {
+                  throw new IllegalArgumentException("No order " + afterOpenOrderID + " of store " + openStoreID);
+               }
+               openOrders.startAfter(Timestamp.valueOf(after.get(0).get(0)), afterOpenOrderID);
+            }
+            return openOrders.next();
+         case "CLAIM_ORDER":
+            requireArguments(request, 1);
+            requireRole("driver", "manager");
+            List<String> claimed = claimNextOrder(Integer.parseInt(request[1]), getCurrentUser());
+            if (claimed != null) {
+               rows.add(claimed);
+            }
+            return rows;
+         case "SALES":
+            requireRole("manager");
+            Integer salesStoreID = null;
+            int days = SALES_DAYS;
+            for (int i = 1; i < request.length; ++i) {
+               if (request[i].startsWith("store=")) {
+                  salesStoreID = Integer.valueOf(request[i].substring("store=".length()));
+               } else if (request[i].startsWith("days=")) {
+                  days = Integer.parseInt(request[i].substring("days=".length()));
+               } else {
+                  throw new IllegalArgumentException("Unknown sales criterion " + request[i]);
+               }
+            }
+            refreshSalesRollups();
+            LocalDateTime latest = getLatestSaleHour(salesStoreID);
+            if (latest == null) {
+               return rows;
+            }
+            LocalDate to = latest.toLocalDate().plusDays(1);
+            return getDailySales(salesStoreID, to.minusDays(days), to);
+         default:
+            throw new IllegalArgumentException("Unknown request " + command);
+      }
+   }//end handleRequest
+
+   private static void requireArguments(String[] request, int count) {
+      if (request.length <= count) {
+         throw new IllegalArgumentException(request[0] + " needs " + count + " argument(s)");
+      }
+   }
+
+   private void requireRole(String... roles) throws SQLException {
+      String role = getUserRole(getCurrentUser());
+      for (String allowed : roles) {
+         if (allowed.equals(role)) {
+            return;
+         }
+      }
+      throw new IllegalArgumentException("Not allowed for role " + role);
+   }
+
+   /**
+    * Serves the request API to store terminals over TCP. Every terminal
+    * connection is a session with its own logged in user; a database
+    * connection is borrowed from the pool for the duration of each request
+    * only, so many mostly idle terminals share a few database connections.
+    *
+    * Each request is one line of tab separated fields (see handleRequest).
+    * The answer is a line "OK n" followed by n lines of tab separated
+    * columns, or a single line "ERR message". PING answers "OK 0" without
+    * touching the database and QUIT ends the session.
+    *
+    * A server for interactive terminals runs the menus of runTerminal over
+    * the connection instead, borrowing a connection for each statement.
+    *
+    * Every session runs on a virtual thread of its own, so sessions waiting
+    * on a slow terminal or on the database cost little more than their
+    * buffers. -Dpizzastore.server.platformThreads=true runs each session on a
+    * platform thread instead, for comparing the two with --load-test.
+    */
+   static class StoreServer {
+
+      // run sessions on platform threads instead of virtual threads
+      static final boolean PLATFORM_THREADS = Boolean.getBoolean("pizzastore.server.platformThreads");
+
+      private final ConnectionPool pool;
+      private final ServerSocket serverSocket;
+      private final boolean interactive;
+      private final ExecutorService sessions =
+         PLATFORM_THREADS ? Executors.newCachedThreadPool() : Executors.newVirtualThreadPerTaskExecutor();
+
+      StoreServer(ConnectionPool pool, int port, boolean interactive) throws IOException {
+         this.pool = pool;
+         this.serverSocket = new ServerSocket(port, 1024);
+         this.interactive = interactive;
+      }
+
+      int getPort() {
+         return serverSocket.getLocalPort();
+      }
+
+      /**
+       * Accepts terminal connections until the server is closed.
+       */
+      void serve() {
+         while (!serverSocket.isClosed()) {
+            try {
+               Socket socket = serverSocket.accept();
+               if (interactive) {
+                  sessions.execute(() -> runTerminalSession(socket));
+               } else {
+                  sessions.execute(() -> runSession(socket));
+               }
+            }catch (IOException e) {
+               if (!serverSocket.isClosed()) {
+                  System.err.println("Error accepting a terminal: " + e.getMessage());
+               }
+            }
+         }
+      }
+
+      private void runSession(Socket socket) {
+         PizzaStore esql = new PizzaStore(pool);
+         try (Socket s = socket;
+              BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+              Writer writer = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+               String[] request = line.split("\t", -1);
+               String command = request[0].toUpperCase();
+               if (command.equals("QUIT")) {
+                  writer.write("OK 0\n");
+                  writer.flush();
+                  break;
+               }
+               long start = System.nanoTime();
+               try {
+                  List<List<String>> rows = new ArrayList<>();
+                  if (!command.equals("PING")) {
+                     esql.acquireConnection();
+                     try {
+                        rows = esql.handleRequest(request);
+                     } finally {
+                        esql.releaseConnection();
+                     }
+                  }
+                  writer.write("OK " + rows.size() + "\n");
+                  long bytes = 0;
+                  for (List<String> row : rows) {
+                     StringBuilder out = new StringBuilder();
+                     for (int i = 0; i < row.size(); ++i) {
+                        if (i > 0) {
+                           out.append('\t');
+                        }
+                        out.append(toField(row.get(i)));
+                     }
+                     bytes += out.length();
+                     writer.write(out.append('\n').toString());
+                  }
+                  REQUESTS.record(command, start, rows.size(), bytes, false);
+               }catch (Exception e) {
+                  REQUESTS.record(command, start, 0, 0, true);
+                  writer.write("ERR " + toField(e.getMessage()) + "\n");
+               }
+               writer.flush();
+            }
+         }catch (IOException e) {
+            // the terminal went away.
+         }
+      }
+
+      private void runTerminalSession(Socket socket) {
+         PizzaStore esql = new PizzaStore(pool);
+         try (Socket s = socket) {
+            // the screen is written unbuffered so prompts reach the terminal before it is read
+            esql.setTerminal(new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)),
+                             new PrintStream(s.getOutputStream(), true, "UTF-8"));
+            runTerminal(esql);
+         }catch (IOException e) {
+            // the terminal went away.
+         }
+      }
+
+      // a value as a single tab free field
+      private static String toField(String value) {
+         return value == null ? "" : value.trim().replaceAll("[\t\r\n]", " ");
+      }
+
+      void close() {
+         try {
+            serverSocket.close();
+         }catch (IOException e) {
+            // ignored.
+         }
+         sessions.shutdownNow();
+      }
+   }//end StoreServer
+
+   /**
+    * Runs the server mode: serves the request API on the given TCP port with
+    * a pool of connections to the database. The pool is sized by the
+    * pizzastore.pool.size system property (default 20); idle connections are
+    * closed after pizzastore.pool.idleTimeout seconds (default 300) and
+    * requests wait at most pizzastore.pool.borrowTimeout seconds (default 5)
+    * for a connection. Every pizzastore.rollup.refreshSeconds seconds (default
+    * 60, 0 to turn it off) the orders placed meanwhile are added to the sales
+    * rollups, so the queue of create_rollups.sql stays short. At start and
+    * then daily the order partitions are maintained (see
+    * maintainOrderPartitions).
+    */
+   public static void runServer(int listenPort, String dbname, String dbport, String user, boolean interactive) throws IOException {
+      String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
+      ConnectionPool pool = new ConnectionPool(url, user, "",
+         Integer.getInteger("pizzastore.pool.size", 20),
+         Integer.getInteger("pizzastore.pool.borrowTimeout", 5) * 1000L,
+         Integer.getInteger("pizzastore.pool.idleTimeout", 300) * 1000L);
+      StoreServer server = new StoreServer(pool, listenPort, interactive);
+      PizzaStore maintainer = new PizzaStore(pool);
+      ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+         Thread thread = new Thread(r, "store-maintenance");
+         thread.setDaemon(true);
+         return thread;
+      });
+      maintenance.scheduleWithFixedDelay(() -> {
+         try {
+            int dropped = maintainer.maintainOrderPartitions();
+            if (dropped > 0) {
+               System.out.println("Dropped the order partitions of " + dropped + " months");
+            }
+         }catch (Exception e) {
+            System.err.println("An error occurred while maintaining the order partitions: " + e.getMessage());
+         }
+      }, 0, 1, TimeUnit.DAYS);
+      int refreshSeconds = Integer.getInteger("pizzastore.rollup.refreshSeconds", 60);
+      if (refreshSeconds > 0) {
+         maintenance.scheduleWithFixedDelay(() -> {
+            try {
+               maintainer.refreshSalesRollups();
+            }catch (Exception e) {
+               System.err.println("An error occurred while refreshing the sales rollups: " + e.getMessage());
+            }
+         }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+      }
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+         server.close();
+         pool.close();
+      }));
+      System.out.println("Serving store terminals on port " + server.getPort());
+      server.serve();
+   }//end runServer
+
+   /**
+    * Measures what sessions of the server mode cost. Starts a server in this
+    * JVM, opens the given number of terminal connections to it and reports
+    * the heap, the resident memory and the platform threads used per open
+    * session, then sends the given number of PING requests through all of
+    * them and reports the throughput. The stack of a platform thread is not
+    * on the heap, so sessions on virtual and on platform threads (see
+    * StoreServer) are compared by their resident memory. PING does not touch
+    * the database, so no database is needed. Tens of thousands of sessions
+    * need a matching open file limit (ulimit -n).
+    */
+   public static void runLoadTest(int sessionCount, int requestCount) throws Exception {
+      ConnectionPool pool = new ConnectionPool("jdbc:postgresql://localhost/unused", "", "", 1, 1000, 60000);
+      StoreServer server = new StoreServer(pool, 0, false);
+      Thread acceptor = new Thread(server::serve, "load-test-acceptor");
+      acceptor.setDaemon(true);
+      acceptor.start();
+
+      Runtime runtime = Runtime.getRuntime();
+      System.gc();
+      long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+      long residentBefore = residentKB();
+      int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+      Socket[] sockets = new Socket[sessionCount];
+      BufferedReader[] readers = new BufferedReader[sessionCount];
+      Writer[] writers = new Writer[sessionCount];
+      try {
+         for (int i = 0; i < sessionCount; ++i) {
+            sockets[i] = new Socket("localhost", server.getPort());
+            readers[i] = new BufferedReader(new InputStreamReader(sockets[i].getInputStream(), StandardCharsets.UTF_8));
+            writers[i] = new BufferedWriter(new OutputStreamWriter(sockets[i].getOutputStream(), StandardCharsets.UTF_8));
+            // one round trip, so the session is running before it is counted
+            writers[i].write("PING\n");
+            writers[i].flush();
+            readers[i].readLine();
+         }
+
+         System.gc();
+         long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+         long residentAfter = residentKB();
+         int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+         System.out.printf("Open sessions:           %d on %s threads\n", sessionCount,
+            StoreServer.PLATFORM_THREADS ? "platform" : "virtual");
+         System.out.printf("Heap per session:        %.1f KB (both ends of the connection)\n",
+            (heapAfter - heapBefore) / 1024.0 / sessionCount);
+         if (residentBefore >= 0 && residentAfter >= 0) {
+            System.out.printf("Resident per session:    %.1f KB (heap, thread stacks and socket buffers)\n",
+               (residentAfter - residentBefore) / (double) sessionCount);
+         }
+         System.out.printf("Platform threads:        %d (%d before)\n", threadsAfter, threadsBefore);
+
+         // drive the sessions from a few client threads, each owning a slice of them
+         int clients = Math.min(sessionCount, Runtime.getRuntime().availableProcessors() * 4);
+         ExecutorService drivers = Executors.newFixedThreadPool(clients);
+         List<Future<?>> done = new ArrayList<>();
+         long start = System.nanoTime();
+         for (int c = 0; c < clients; ++c) {
+            final int client = c;
+            done.add(drivers.submit(() -> {
+               // the sessions client, client + clients, client + 2 * clients, ...
+               int owned = (sessionCount - client + clients - 1) / clients;
+               int requests = requestCount / clients + (client < requestCount % clients ? 1 : 0);
+               for (int r = 0; r < requests; ++r) {
+                  int i = client + (r % owned) * clients;
+                  writers[i].write("PING\n");
+                  writers[i].flush();
+                  readers[i].readLine();
+               }
+               return null;
+            }));
+         }
+         for (Future<?> f : done) {
+            f.get();
+         }
+         long elapsed = System.nanoTime() - start;
+         drivers.shutdown();
+         System.out.printf("Requests:                %d in %.2f s\n", requestCount, elapsed / 1e9);
+         System.out.printf("Throughput:              %.0f requests/s\n", requestCount / (elapsed / 1e9));
+         System.out.println();
+         REQUESTS.report(System.out);
+      } finally {
+         for (Socket socket : sockets) {
+            if (socket != null) {
+               socket.close();
+            }
+         }
+         server.close();
+         pool.close();
+      }
+   }//end runLoadTest
+
+   // the resident set size of this process in KB, or -1 where /proc/self/status is not available
+   private static long residentKB() {
+      try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (line.startsWith("VmRSS:")) {
+               return Long.parseLong(line.substring(6).replace("kB", "").trim());
+            }
+         }
+      }catch (IOException | NumberFormatException e) {
+         // not Linux.
+      }
+      return -1;
+   }
+
+   // the tables loaded by bulkLoad, the file of the data directory each is read from, and the columns of the file
+   static final String[][] LOAD_FILES = {
+      { "Users", "users.csv", "login, password, role, favoriteItems, phoneNum" },
+      { "Items", "items.csv", "itemName, ingredients, typeOfItem, price, description" },
+      { "Store", "store.csv", "storeID, address, city, state, isOpen, reviewScore" },
+      // driverLogin is left null: the loaded orders are unclaimed
+      { "FoodOrder", "foodorder.csv", "orderID, login, storeID, totalPrice, orderTimestamp, orderStatus" },
+      { "ItemsInOrder", "itemsinorder.csv", "orderID, orderTimestamp, itemName, quantity" },
+   };
+
+   /**
+    * Loads the CSV files of a data directory (see LOAD_FILES) into the empty
+    * tables of create_tables.sql. The files are streamed from the client with
+    * COPY FROM STDIN, so neither a path on the server nor superuser rights
+    * are needed.
+    *
+    * The foreign keys and the secondary indexes of the tables are dropped
+    * first. The tables are then independent of each other and are loaded in
+    * parallel, one connection each, without index maintenance or a foreign
+    * key lookup per row. Afterwards the indexes are built and the foreign
+    * keys added back, which checks them all at once; this also happens when
+    * dropping them, creating the partitions or loading a file fails, for
+    * those that were dropped. FoodOrderKey is filled from the loaded orders
+    * before that, which fails when foodorder.csv has an orderID twice. The
+    * orderID sequence is moved past the loaded orders, the loaded orders are
+    * added to the sales rollups in one refresh, and the tables are vacuumed
+    * and analyzed.
+    *
+    * The month partitions of the orders in foodorder.csv are created before
+    * loading. An index of a partitioned table is dropped and rebuilt on the
+    * table, so its partitions follow.
+    *
+    * @param dataDir the directory holding the CSV files
+    * @throws java.lang.Exception when a file could not be loaded, an orderID was loaded twice or the loaded rows
+    *         violate a foreign key
+    */
+   public static void bulkLoad(String dataDir, String dbname, String dbport, String user) throws Exception {
+      String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
+      List<String> tables = new ArrayList<>();
+      for (String[] file : LOAD_FILES) {
+         tables.add(file[0].toLowerCase());
+      }
+      // filled from FoodOrder below, so its foreign key is checked once like those of the loaded tables
+      tables.add("foodorderkey");
+      long start = System.nanoTime();
+
+      try (Connection connection = DriverManager.getConnection(url, connectionProperties(user, ""));
+           Statement stmt = connection.createStatement()) {
+         // remember the foreign keys and secondary indexes, each as the statement dropping it and its definition
+         List<String[]> foreignKeys = new ArrayList<>();
+         List<String[]> indexes = new ArrayList<>();
+         PreparedStatement query = connection.prepareStatement(
+            "SELECT conrelid::regclass::text, conname, pg_get_constraintdef(oid) FROM pg_constraint " +
+            "WHERE contype = 'f' AND conparentid = 0 AND conrelid::regclass::text = ANY (?)");
+         query.setArray(1, connection.createArrayOf("text", tables.toArray()));
+         ResultSet rs = query.executeQuery();
+         while (rs.next()) {
+            foreignKeys.add(new String[] {
+               "ALTER TABLE " + rs.getString(1) + " DROP CONSTRAINT " + rs.getString(2),
+               "ALTER TABLE " + rs.getString(1) + " ADD CONSTRAINT " + rs.getString(2) + " " + rs.getString(3) });
+         }
+         query.close();
+         query = connection.prepareStatement(
+            "SELECT indexname, indexdef FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ANY (?) " +
+            "AND indexname NOT IN (SELECT conname FROM pg_constraint WHERE contype IN ('p', 'u'))");
+         query.setArray(1, connection.createArrayOf("text", tables.toArray()));
+         rs = query.executeQuery();
+         while (rs.next()) {
+            // the definition of an index of a partitioned table is ON ONLY the table, which would skip the partitions
+            indexes.add(new String[] { "DROP INDEX " + rs.getString(1), rs.getString(2).replace(" ON ONLY ", " ON ") });
+         }
+         query.close();
+
+         // the definitions of the foreign keys and indexes dropped so far, which the finally below restores
+         List<String> droppedForeignKeys = new ArrayList<>();
+         List<String> droppedIndexes = new ArrayList<>();
+         Exception failure = null;
+         long loaded = 0;
+         try {
+            for (String[] foreignKey : foreignKeys) {
+               stmt.execute(foreignKey[0]);
+               droppedForeignKeys.add(foreignKey[1]);
+            }
+            for (String[] index : indexes) {
+               stmt.execute(index[0]);
+               droppedIndexes.add(index[1]);
+            }
+            System.out.printf("Dropped %d foreign keys and %d indexes\n", droppedForeignKeys.size(), droppedIndexes.size());
+
+            // every month with orders needs its partitions before the rows can be copied
+            Set<String> months = orderMonths(new File(dataDir, "foodorder.csv"));
+            try (PreparedStatement partition = connection.prepareStatement("SELECT create_order_partition(?::timestamp)")) {
+               for (String month : months) {
+                  partition.setString(1, month);
+                  partition.execute();
+               }
+            }
+            System.out.printf("Created the partitions of %d months\n", months.size());
+
+            // load every table on its own connection
+            ExecutorService loaders = Executors.newFixedThreadPool(LOAD_FILES.length);
+            try {
+               List<Future<Long>> loads = new ArrayList<>();
+               for (String[] file : LOAD_FILES) {
+                  loads.add(loaders.submit(() -> copyTable(url, user, file[0], file[2], new File(dataDir, file[1]))));
+               }
+               for (int i = 0; i < loads.size(); ++i) {
+                  try {
+                     loaded += loads.get(i).get();
+                  }catch (ExecutionException e) {
+                     System.err.println("An error occurred while loading " + LOAD_FILES[i][1] + ": " + e.getCause().getMessage());
+                     if (failure == null) {
+                        failure = (Exception) e.getCause();
+                     }
+                  }
+               }
+            } finally {
+               loaders.shutdown();
+            }
+
+            // copyTable turned off the trigger filling FoodOrderKey; its primary key rejects an orderID loaded twice
+            if (failure == null) {
+               try {
+                  stmt.execute("INSERT INTO FoodOrderKey (orderID, orderTimestamp) SELECT orderID, orderTimestamp FROM FoodOrder");
+               }catch (SQLException e) {
+                  System.err.println("foodorder.csv has an orderID more than once: " + e.getMessage());
+                  failure = e;
+               }
+            }
+         } finally {
+            // put the indexes and foreign keys that were dropped back whatever failed since, so the schema
+            // stays intact; one that cannot be restored does not stop the others
+            long indexStart = System.nanoTime();
+            List<String> definitions = new ArrayList<>(droppedIndexes);
+            definitions.addAll(droppedForeignKeys);
+            for (String definition : definitions) {
+               try {
+                  stmt.execute(definition);
+               }catch (SQLException e) {
+                  System.err.println("Unable to restore " + definition + ": " + e.getMessage());
+                  if (failure == null) {
+                     failure = e;
+                  }
+               }
+            }
+            System.out.printf("Rebuilt %d indexes and checked %d foreign keys in %.2f s\n",
+               droppedIndexes.size(), droppedForeignKeys.size(), (System.nanoTime() - indexStart) / 1e9);
+         }
+         if (failure != null) {
+            throw failure;
+         }
+
+         // start handing out orderIDs after the loaded orders
+         stmt.execute("SELECT setval('" + ORDER_ID_SEQUENCE + "', (SELECT COALESCE(MAX(orderID), 0) + 1 FROM FoodOrder), false)");
+
+         // add the loaded orders to the sales rollups, when create_rollups.sql was run; copyTable did not queue
+         // them, so a refresh running before ItemsInOrder was committed could not count them without their items
+         rs = stmt.executeQuery("SELECT to_regproc('refresh_sales_rollups') IS NOT NULL");
+         rs.next();
+         if (rs.getBoolean(1)) {
+            long rollupStart = System.nanoTime();
+            stmt.execute("INSERT INTO SalesRollupQueue (orderID, orderTimestamp) SELECT orderID, orderTimestamp FROM FoodOrder");
+            rs = stmt.executeQuery("SELECT refresh_sales_rollups()");
+            rs.next();
+            System.out.printf("Added %d orders to the sales rollups in %.2f s\n", rs.getLong(1), (System.nanoTime() - rollupStart) / 1e9);
+         }
+         // vacuum too, so the visibility map lets the covering order indexes answer without the heap from the start
+         stmt.execute("VACUUM ANALYZE");
+         invalidateMenuCache();
+         stmt.execute("NOTIFY " + MENU_CHANNEL);
+         double seconds = (System.nanoTime() - start) / 1e9;
+         System.out.printf("Loaded %d rows from %s in %.2f s (%.0f rows/s)\n", loaded, dataDir, seconds, loaded / seconds);
+      }
+   }//end bulkLoad
+
+   // the first day of each month an order of a foodorder.csv file was placed in, as yyyy-MM-01
+   private static Set<String> orderMonths(File file) throws IOException {
+      Set<String> months = new TreeSet<>();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+         List<String> header = csvFields(reader.readLine());
+         int column = header.indexOf("orderTimestamp");
+         if (column < 0) {
+            throw new IOException(file + " has no orderTimestamp column");
+         }
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+               months.add(csvFields(line).get(column).substring(0, 7) + "-01");
+            }
+         }
+      }
+      return months;
+   }
+
+   // the fields of a CSV line, unquoted
+   private static List<String> csvFields(String line) {
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      for (int i = 0; i < line.length(); ++i) {
+         char c = line.charAt(i);
+         if (c == '"') {
+            if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+               field.append(c);
+               ++i;
+            } else {
+               quoted = !quoted;
+            }
+         } else if (c == ',' && !quoted) {
+            fields.add(field.toString());
+            field.setLength(0);
+         } else {
+            field.append(c);
+         }
+      }
+      fields.add(field.toString());
+      return fields;
+   }
+
+   /**
+    * Writes a copy of a users.csv file whose password column holds bcrypt
+    * hashes (see Passwords) instead of the passwords, for --load. Passwords
+    * that are already hashes are copied as they are, so the tool can be run
+    * again on its own output. bcrypt is slow on purpose, so the rows are
+    * hashed on all cores.
+    *
+    * @param in the users.csv to read
+    * @param out the file to write; it may not be the one read
+    * @throws java.io.IOException when a file could not be read or written
+    */
+   public static void hashPasswords(File in, File out) throws IOException {
+      long start = System.nanoTime();
+      List<String> lines = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(in), StandardCharsets.UTF_8), 1 << 16)) {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+               lines.add(line);
+            }
+         }
+      }
+      if (lines.isEmpty()) {
+         throw new IOException(in + " is empty");
+      }
+      int column = csvFields(lines.get(0)).indexOf("password");
+      if (column < 0) {
+         throw new IOException(in + " has no password column");
+      }
+      AtomicLong hashed = new AtomicLong();
+      List<String> rows = lines.subList(1, lines.size()).parallelStream().map(line -> {
+         List<String> fields = csvFields(line);
+         if (Passwords.isHash(fields.get(column))) {
+            return line;
+         }
+         fields.set(column, Passwords.hash(fields.get(column)));
+         hashed.incrementAndGet();
+         StringBuilder row = new StringBuilder();
+         for (int i = 0; i < fields.size(); ++i) {
+            String field = fields.get(i);
+            if (i > 0) {
+               row.append(',');
+            }
+            row.append(field.matches(".*[,\"\r\n].*") ? '"' + field.replace("\"", "\"\"") + '"' : field);
+         }
+         return row.toString();
+      }).collect(Collectors.toList());
+      try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+         writer.write(lines.get(0) + "\n");
+         for (String row : rows) {
+            writer.write(row + "\n");
+         }
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("Hashed %d of %d passwords at cost %d in %.2f s (%.0f hashes/s)\n",
+         hashed.get(), rows.size(), Passwords.COST, seconds, hashed.get() / seconds);
+   }//end hashPasswords
+
+   // streams one CSV file into columns of a table and reports its load rate
+   private static long copyTable(String url, String user, String table, String columns, File file) throws SQLException, IOException {
+      long start = System.nanoTime();
+      try (Connection connection = DriverManager.getConnection(url, connectionProperties(user, ""));
+           BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+         // the FoodOrder triggers of create_tables.sql and create_rollups.sql leave the loaded orders to bulkLoad
+         try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SET pizzastore.bulk_load = on");
+         }
+         long rows = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+            "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv, HEADER)", reader);
+         double seconds = (System.nanoTime() - start) / 1e9;
+         System.out.printf("%-14s %10d rows in %7.2f s (%.0f rows/s)\n", table, rows, seconds, rows / seconds);
+         return rows;
+      }
+   }
+
+
+}//end PizzaStore
+
@@ -0,0 +1,3 @@
+#!/bin/bash
+DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+cs166_psql -p $PGPORT "$@" $USER"_project_phase_3_DB" < $DIR/../src/bench_order_history.sql
@@ -3,5 +3,23 @@ DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
 #cs166_createdb $USER"_project_phase_3_DB"
 cs166_psql -p $PGPORT $USER"_project_phase_3_DB" < $DIR/../src/create_tables.sql
 cs166_psql -p $PGPORT $USER"_project_phase_3_DB" < $DIR/../src/create_indexes.sql
-cs166_psql -p $PGPORT $USER"_project_phase_3_DB" < $DIR/../src/load_data.sql
+cs166_psql -p $PGPORT $USER"_project_phase_3_DB" < $DIR/../src/create_rollups.sql
 
+# the loader is part of the application, which needs JDK 21 (see java/scripts/compile.sh)
+mvn -q -f $DIR/../../java/pom.xml package -pl app -am
+CP="$DIR/../../java/app/target/classes:$DIR/../../java/app/target/lib/*"
+DATA="$( cd "${1:-$DIR/../../data}" && pwd )"
+
+# users.csv holds the passwords themselves: load the files of data/ (or the directory given as argument)
+# from a directory where users.csv is replaced by a copy with bcrypt hashes and the other files are links
+HASHED=$(mktemp -d)
+trap 'rm -rf "$HASHED"' EXIT
+for FILE in "$DATA"/*.csv; do
+   if [ "$(basename "$FILE")" != users.csv ]; then
+      ln -s "$FILE" "$HASHED/"
+   fi
+done
+java -cp "$CP" PizzaStore --hash-passwords "$DATA/users.csv" "$HASHED/users.csv" || exit 1
+
+# stream the CSV files into the tables with COPY FROM STDIN
+java -cp "$CP" PizzaStore --load "$HASHED" $USER"_project_phase_3_DB" $PGPORT $USER
@@ -0,0 +1,131 @@
+/*
+ * Compares the old and the new order-history queries on a large synthetic
+ * order table. Run against a loaded database (Store and Items must be
+ * populated); everything generated here is rolled back at the end.
+ *
+ * Size the data set with psql variables, e.g.
+ *    psql -v orders=2000000 -v users=20000 ... < bench_order_history.sql
+ * and the number of timed runs of each query with -v runs=...
+ */
+\if :{?orders}
+\else
+\set orders 1000000
+\endif
+\if :{?users}
+\else
+\set users 10000
+\endif
+\if :{?runs}
+\else
+\set runs 200
+\endif
+
+\timing on
+BEGIN;
+
+INSERT INTO Users (login, password, role, favoriteItems, phoneNum)
+SELECT 'bench' || u, 'bench', 'customer', '', '000-000-0000'
+FROM generate_series(1, :users) AS u;
+
+/* the month partitions of the orders, one order a minute back from now */
+SELECT create_order_partition(now()::timestamp - m * interval '1 month')
+FROM generate_series(0, :orders / (60 * 24 * 28) + 1) AS m;
+
+/* orderIDs far above the real ones; each order has two items */
+INSERT INTO FoodOrder (orderID, login, storeID, totalPrice, orderTimestamp, orderStatus)
+SELECT 100000000 + o,
+       'bench' || (1 + o % :users),
+       (SELECT min(storeID) FROM Store) + o % 1000,
+       12.98,
+       now() - o * interval '1 minute',
+       'complete'
+FROM generate_series(1, :orders) AS o;
+
+INSERT INTO ItemsInOrder (orderID, orderTimestamp, itemName, quantity)
+SELECT 100000000 + o, now() - o * interval '1 minute', I.itemName, 1
+FROM generate_series(1, :orders) AS o
+CROSS JOIN (SELECT itemName FROM Items ORDER BY itemName LIMIT 2) AS I;
+
+ANALYZE Users;
+ANALYZE FoodOrder;
+ANALYZE ItemsInOrder;
+
+/* old viewAllOrders: join and group every order, then filter by login; grouped by
+ * the whole primary key (orderID, orderTimestamp) so the other FoodOrder columns
+ * stay functionally dependent on it */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity
+FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID
+GROUP BY F.orderID, F.orderTimestamp, I.itemName, I.quantity HAVING F.login = 'bench42';
+
+/* new viewAllOrders: the first page of one login from the (login, orderTimestamp, orderID)
+ * index of each partition, oldest partition first */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT orderID, orderTimestamp FROM FoodOrder WHERE login = 'bench42' ORDER BY orderTimestamp, orderID LIMIT 10;
+
+/* old viewRecentOrders */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity
+FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID
+GROUP BY F.orderID, F.orderTimestamp, I.itemName, I.quantity HAVING F.login = 'bench42' ORDER BY F.orderID DESC;
+
+/* viewRecentOrders filtering first, without grouping */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity
+FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID AND F.orderTimestamp = I.orderTimestamp
+WHERE F.login = 'bench42' ORDER BY F.orderTimestamp DESC, F.orderID DESC;
+
+/* viewRecentOrders with LIMIT pushed down: the last 5 entries of the index,
+ * newest partition first, so older partitions are not read */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT orderID FROM FoodOrder WHERE login = 'bench42' ORDER BY orderTimestamp DESC, orderID DESC LIMIT 5;
+
+/* viewOrderInfo: one order and its items; the orderTimestamp is looked up
+ * first, so the other partitions are never executed */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity
+FROM FoodOrder F LEFT JOIN ItemsInOrder I ON F.orderID = I.orderID AND F.orderTimestamp = I.orderTimestamp
+WHERE F.orderID = 100000042 AND F.orderTimestamp = (SELECT orderTimestamp FROM FoodOrder WHERE orderID = 100000042);
+
+/* a single EXPLAIN ANALYZE varies by up to 2x between runs, so each query is
+ * also run :runs times and the median and 90th percentile are reported */
+CREATE FUNCTION pg_temp.time_query(label text, query text, runs integer)
+RETURNS TABLE (query_label text, median_ms numeric, p90_ms numeric) AS $$
+DECLARE
+   started timestamptz;
+   ms double precision[] := '{}';
+BEGIN
+   FOR r IN 1 .. runs LOOP
+      started := clock_timestamp();
+      EXECUTE query;
+      ms := ms || extract(epoch FROM clock_timestamp() - started) * 1000;
+   END LOOP;
+   RETURN QUERY
+   SELECT label,
+          round(percentile_cont(0.5) WITHIN GROUP (ORDER BY t)::numeric, 3),
+          round(percentile_cont(0.9) WITHIN GROUP (ORDER BY t)::numeric, 3)
+   FROM unnest(ms) AS t;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT T.*
+FROM (VALUES
+   ('viewAllOrders, before', $q$
+      SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity
+      FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID
+      GROUP BY F.orderID, F.orderTimestamp, I.itemName, I.quantity HAVING F.login = 'bench42'$q$),
+   ('viewAllOrders, after', $q$
+      SELECT orderID, orderTimestamp FROM FoodOrder WHERE login = 'bench42'
+      ORDER BY orderTimestamp, orderID LIMIT 10$q$),
+   ('viewRecentOrders, before', $q$
+      SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity
+      FROM FoodOrder F JOIN ItemsInOrder I ON F.orderID = I.orderID
+      GROUP BY F.orderID, F.orderTimestamp, I.itemName, I.quantity HAVING F.login = 'bench42'
+      ORDER BY F.orderID DESC$q$),
+   ('viewRecentOrders, after', $q$
+      SELECT orderID FROM FoodOrder WHERE login = 'bench42'
+      ORDER BY orderTimestamp DESC, orderID DESC LIMIT 5$q$)
+) AS Q (label, query)
+CROSS JOIN LATERAL pg_temp.time_query(Q.label, Q.query, :runs) AS T;
+
+ROLLBACK;
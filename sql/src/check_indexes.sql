@@ -0,0 +1,103 @@
+/*
+ * Checks that each query the application runs is planned with the index it
+ * was designed for. Sequential scans are disabled so the check also works on
+ * the small seed data set, where a sequential scan would otherwise win.
+ * Fails with an error naming the first query that does not use its index.
+ */
+SET enable_seqscan = off;
+
+CREATE FUNCTION pg_temp.expect_index(query text, index_name text) RETURNS void AS $$
+DECLARE
+   plan text;
+BEGIN
+   EXECUTE 'EXPLAIN (FORMAT JSON) ' || query INTO plan;
+   IF position(lower(index_name) IN lower(plan)) = 0 THEN
+      RAISE EXCEPTION 'query does not use %: % %', index_name, query, plan;
+   END IF;
+   RAISE NOTICE 'ok: % uses %', query, index_name;
+END;
+$$ LANGUAGE plpgsql;
+
+/* FoodOrder and ItemsInOrder are partitioned by month: their plans name the
+ * index of each partition, foodorder_YYYY_MM_<columns>_idx, so the checks
+ * look for the column part or for the partition of a seed order */
+
+/* viewAllOrders: the first and the next page of orders of one user */
+SELECT pg_temp.expect_index(
+   'SELECT orderID, orderTimestamp FROM FoodOrder WHERE (orderTimestamp, orderID) > (''1900-01-01'', -2147483648) AND login = ''jbalaamc'' ORDER BY orderTimestamp, orderID LIMIT 10',
+   'login_ordertimestamp_orderid_idx');
+SELECT pg_temp.expect_index(
+   'SELECT orderID, orderTimestamp FROM FoodOrder WHERE (orderTimestamp, orderID) > (''2016-08-24 14:03:20'', 10001) AND login = ''jbalaamc'' ORDER BY orderTimestamp, orderID LIMIT 10',
+   'login_ordertimestamp_orderid_idx');
+
+/* viewRecentOrders: newest 5 orderIDs of one user */
+SELECT pg_temp.expect_index(
+   'SELECT orderID FROM FoodOrder WHERE login = ''jbalaamc'' ORDER BY orderTimestamp DESC, orderID DESC LIMIT 5',
+   'login_ordertimestamp_orderid_idx');
+
+/* getOrder: the month of an order by its orderID alone, which then prunes
+ * FoodOrder to the partition of that month when the query runs */
+SELECT pg_temp.expect_index(
+   'SELECT orderTimestamp, orderStatus, driverLogin FROM FoodOrder WHERE orderID = 10000 AND orderTimestamp = (SELECT orderTimestamp FROM FoodOrderKey WHERE orderID = 10000)',
+   'FoodOrderKey_pkey');
+
+/* viewOrderInfo: one order and its items by the whole key getOrder returns,
+ * order 10000 was placed in May 2014. The seed partitions hold one order
+ * each, so which index finds the order in FoodOrder is a tie; the items must
+ * come from the primary key */
+SELECT pg_temp.expect_index(
+   'SELECT F.orderID, F.orderTimestamp, F.totalPrice, F.orderStatus, I.itemName, I.quantity FROM FoodOrder F LEFT JOIN ItemsInOrder I ON F.orderID = I.orderID AND F.orderTimestamp = I.orderTimestamp WHERE F.orderID = 10000 AND F.orderTimestamp = ''2014-05-07 07:01:29''',
+   'itemsinorder_2014_05_pkey');
+
+/* viewOrderInfo: browsing all orders a page at a time */
+SELECT pg_temp.expect_index(
+   'SELECT orderID, orderTimestamp, totalPrice, orderStatus FROM FoodOrder WHERE (orderTimestamp, orderID) > (''1900-01-01'', -2147483648) ORDER BY orderTimestamp, orderID LIMIT 10',
+   'foodorder_2014_05_ordertimestamp_orderid_idx');
+
+/* store search: by city, by state, and browsing every store a page at a time */
+SELECT pg_temp.expect_index(
+   'SELECT storeID, address, city, state, reviewScore, isOpen FROM Store WHERE storeID > 0 AND lower(city) = lower(''Riverside'') ORDER BY storeID LIMIT 10',
+   'Store_city_storeID_idx');
+SELECT pg_temp.expect_index(
+   'SELECT storeID, address, city, state, reviewScore, isOpen FROM Store WHERE storeID > 0 AND lower(state) = lower(''California'') AND isOpen = ''yes'' ORDER BY storeID LIMIT 10',
+   'Store_state_storeID_idx');
+SELECT pg_temp.expect_index(
+   'SELECT storeID, address, city, state, reviewScore, isOpen FROM Store WHERE storeID > 0 AND reviewScore >= 4 ORDER BY storeID LIMIT 10',
+   'Store_pkey');
+
+/* updateMenu: the next page of items */
+SELECT pg_temp.expect_index(
+   'SELECT itemName, price FROM Items WHERE itemName > ''Fries'' ORDER BY itemName LIMIT 20',
+   'Items_pkey');
+
+/* role checks of updateOrderStatus, updateMenu and updateUser */
+SELECT pg_temp.expect_index(
+   'SELECT * FROM Users WHERE login = ''mfarrears0'' AND role = ''manager''',
+   'Users_pkey');
+
+/* viewOpenOrders: the next page of the open-order queue of a store */
+SELECT pg_temp.expect_index(
+   'SELECT orderID, orderTimestamp, orderStatus, login, totalPrice, driverLogin FROM FoodOrder WHERE (orderTimestamp, orderID) > (''1900-01-01'', -2147483648) AND storeID = 362 AND orderStatus <> ''complete'' ORDER BY orderTimestamp, orderID LIMIT 20',
+   'storeid_ordertimestamp_orderid_idx');
+
+/* viewSalesDashboard: the hours of one store, and of all stores. The range
+ * of the store query spans the seed data, so the store is the selective part */
+SELECT pg_temp.expect_index(
+   'SELECT hour::date, sum(orderCount), sum(revenue) FROM StoreSalesHourly WHERE hour >= ''2014-01-01'' AND hour < ''2025-01-01'' AND storeID = 362 GROUP BY 1',
+   'StoreSalesHourly_pkey');
+SELECT pg_temp.expect_index(
+   'SELECT storeID, sum(orderCount), sum(revenue) FROM StoreSalesHourly WHERE hour >= ''2024-11-09'' AND hour < ''2024-11-16'' GROUP BY storeID',
+   'StoreSalesHourly_hour_idx');
+
+/* viewSalesDashboard: the items sold at one store, and at all stores */
+SELECT pg_temp.expect_index(
+   'SELECT itemName, sum(quantity) FROM ItemSalesDaily WHERE day >= ''2014-01-01'' AND day < ''2025-01-01'' AND storeID = 362 GROUP BY itemName',
+   'ItemSalesDaily_pkey');
+SELECT pg_temp.expect_index(
+   'SELECT itemName, sum(quantity) FROM ItemSalesDaily WHERE day >= ''2024-11-09'' AND day < ''2024-11-16'' GROUP BY itemName',
+   'ItemSalesDaily_day_idx');
+
+/* claimNextOrder: the oldest unclaimed order on the queue */
+SELECT pg_temp.expect_index(
+   'SELECT orderID FROM FoodOrder WHERE storeID = 362 AND orderStatus <> ''complete'' AND driverLogin IS NULL ORDER BY orderTimestamp, orderID LIMIT 1 FOR UPDATE SKIP LOCKED',
+   'storeid_ordertimestamp_orderid_idx');
@@ -0,0 +1,50 @@
+/*
+ * FoodOrder and ItemsInOrder are partitioned by month, so each index below
+ * is built on every partition. Queries in (orderTimestamp, orderID) order
+ * read the partitions one after the other and stop at the end of the page.
+ */
+
+/* Orders of a user: viewAllOrders a page at a time, viewRecentOrders newest first */
+CREATE INDEX FoodOrder_login_orderTimestamp_idx ON FoodOrder (login, orderTimestamp, orderID);
+
+/* Browsing all orders a page at a time in viewOrderInfo */
+CREATE INDEX FoodOrder_orderTimestamp_orderID_idx ON FoodOrder (orderTimestamp, orderID);
+
+/* The open-order queue of a store, oldest first, for the dispatch screen of
+ * drivers and managers, paged on (orderTimestamp, orderID). Only orders that
+ * are not complete are indexed, so the index stays the size of the queue
+ * however long the order history grows. Queries must spell out
+ * orderStatus <> 'complete' to be able to use it. */
+CREATE INDEX FoodOrder_open_storeID_idx ON FoodOrder (storeID, orderTimestamp, orderID) WHERE orderStatus <> 'complete';
+
+/* Orders of a store; also backs the ON DELETE CASCADE from Store */
+CREATE INDEX FoodOrder_storeID_idx ON FoodOrder (storeID);
+
+/* Backs the ON DELETE SET NULL from Users to the driver of an order. Most
+ * orders in the history are delivered, so this is not a partial index. */
+CREATE INDEX FoodOrder_driverLogin_idx ON FoodOrder (driverLogin);
+
+/* Store search of placeOrder and viewStores: the stores of a city or a state,
+ * in storeID order so a page continues the index scan where the last one stopped */
+CREATE INDEX Store_city_storeID_idx ON Store (lower(city), storeID);
+CREATE INDEX Store_state_storeID_idx ON Store (lower(state), storeID);
+
+/* Backs the foreign key from ItemsInOrder to Items when items are renamed or removed */
+CREATE INDEX ItemsInOrder_itemName_idx ON ItemsInOrder (itemName);
+
+/*
+ * Not indexed on purpose:
+ *  - FoodOrder by orderID alone (getOrder, for an orderID typed in by the
+ *    user) reads the orderTimestamp from the primary key of FoodOrderKey
+ *    (create_tables.sql), which prunes FoodOrder to the partition of its
+ *    month. Every later statement about the order (its items, its status
+ *    and claimNextOrder's update) uses the whole key and only reads the
+ *    partitions of its month.
+ *  - claimNextOrder looks for unclaimed orders on the open queue of the store
+ *    (FoodOrder_open_storeID_idx); claimed open orders are few and filtered.
+ *  - Users probed by (login, role) uses the login primary key.
+ *  - Store by isOpen or reviewScore: a handful of values each, so they are
+ *    filtered on the rows of the city, state or primary key scan.
+ *  - Items is read once into the application's menu cache, so viewMenu no
+ *    longer filters it by typeOfItem and price in SQL.
+ */
@@ -0,0 +1,93 @@
+/*
+ * Sales rollups of the manager dashboard (PizzaStore.viewSalesDashboard).
+ * Run after create_tables.sql. The dashboard reads these tables only, so
+ * its cost does not grow with the order history.
+ *
+ * Every insert into FoodOrder queues the keys of the new orders in SalesRollupQueue.
+ * refresh_sales_rollups() drains the queue and adds the queued orders to
+ * the rollups, so a refresh costs in proportion to the orders placed since
+ * the last one. Orders removed later (ON DELETE CASCADE from Users or Store)
+ * stay counted in the rollups.
+ *
+ * The bulk loader commits FoodOrder before ItemsInOrder, so a refresh in
+ * between would count its orders without their items. Its connections set
+ * pizzastore.bulk_load, which turns the queueing off, and it queues the
+ * loaded orders itself once both tables are committed.
+ */
+DROP FUNCTION IF EXISTS refresh_sales_rollups();
+DROP FUNCTION IF EXISTS queue_sales_rollup() CASCADE;
+DROP TABLE IF EXISTS SalesRollupQueue;
+DROP TABLE IF EXISTS StoreSalesHourly;
+DROP TABLE IF EXISTS ItemSalesDaily;
+
+/* Orders and revenue of a store per hour; days are summed from the hours */
+CREATE TABLE StoreSalesHourly ( storeID integer NOT NULL,
+                                hour timestamp NOT NULL,
+                                orderCount integer NOT NULL,
+                                revenue decimal(14,2) NOT NULL,
+                                PRIMARY KEY(storeID, hour)
+);
+
+/* Dashboard over all stores: the hours of a time range */
+CREATE INDEX StoreSalesHourly_hour_idx ON StoreSalesHourly (hour);
+
+/* Units sold of an item at a store per day, and the number of orders they were in */
+CREATE TABLE ItemSalesDaily ( storeID integer NOT NULL,
+                              day date NOT NULL,
+                              itemName varchar(50) NOT NULL,
+                              quantity integer NOT NULL,
+                              orderCount integer NOT NULL,
+                              PRIMARY KEY(storeID, day, itemName)
+);
+
+/* Dashboard over all stores: the days of a time range */
+CREATE INDEX ItemSalesDaily_day_idx ON ItemSalesDaily (day);
+
+/* orders inserted since the last refresh; no index, it is always read whole.
+ * The orderTimestamp lets the refresh read only the partitions of the orders */
+CREATE TABLE SalesRollupQueue ( orderID integer NOT NULL,
+                                orderTimestamp timestamp NOT NULL
+);
+
+/* Queues the orders of an INSERT or COPY with a single statement per statement */
+CREATE FUNCTION queue_sales_rollup() RETURNS trigger AS $$
+BEGIN
+   IF current_setting('pizzastore.bulk_load', true) = 'on' THEN
+      RETURN NULL;
+   END IF;
+   INSERT INTO SalesRollupQueue (orderID, orderTimestamp) SELECT orderID, orderTimestamp FROM new_orders;
+   RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER FoodOrder_sales_rollup AFTER INSERT ON FoodOrder
+   REFERENCING NEW TABLE AS new_orders
+   FOR EACH STATEMENT EXECUTE FUNCTION queue_sales_rollup();
+
+/*
+ * Adds the queued orders to the rollups and returns how many there were.
+ * The queue is drained with DELETE, so refreshes running at the same time
+ * never count an order twice: the second one waits for the rows the first
+ * one deleted and then skips them.
+ */
+CREATE FUNCTION refresh_sales_rollups() RETURNS bigint AS $$
+   WITH drained AS (
+      DELETE FROM SalesRollupQueue RETURNING orderID, orderTimestamp
+   ), orders AS (
+      SELECT F.orderID, F.storeID, F.orderTimestamp, F.totalPrice
+      FROM FoodOrder F JOIN drained D ON F.orderID = D.orderID AND F.orderTimestamp = D.orderTimestamp
+   ), stores AS (
+      INSERT INTO StoreSalesHourly AS S (storeID, hour, orderCount, revenue)
+      SELECT storeID, date_trunc('hour', orderTimestamp), count(*), sum(totalPrice)
+      FROM orders GROUP BY 1, 2
+      ON CONFLICT (storeID, hour) DO UPDATE
+      SET orderCount = S.orderCount + EXCLUDED.orderCount, revenue = S.revenue + EXCLUDED.revenue
+   ), items AS (
+      INSERT INTO ItemSalesDaily AS S (storeID, day, itemName, quantity, orderCount)
+      SELECT O.storeID, O.orderTimestamp::date, I.itemName, sum(I.quantity), count(*)
+      FROM orders O JOIN ItemsInOrder I ON I.orderID = O.orderID AND I.orderTimestamp = O.orderTimestamp GROUP BY 1, 2, 3
+      ON CONFLICT (storeID, day, itemName) DO UPDATE
+      SET quantity = S.quantity + EXCLUDED.quantity, orderCount = S.orderCount + EXCLUDED.orderCount
+   )
+   SELECT count(*) FROM drained;
+$$ LANGUAGE sql;
@@ -3,9 +3,19 @@ DROP TABLE IF EXISTS Items CASCADE;
 DROP TABLE IF EXISTS FoodOrder CASCADE;
 DROP TABLE IF EXISTS Store CASCADE;
 DROP TABLE IF EXISTS ItemsInOrder CASCADE;
+DROP TABLE IF EXISTS FoodOrderKey CASCADE;
+DROP SEQUENCE IF EXISTS FoodOrder_orderID_seq;
+DROP TYPE IF EXISTS order_status;
+DROP FUNCTION IF EXISTS create_order_partition(timestamp);
+DROP FUNCTION IF EXISTS maintain_order_partitions(integer, integer);
+DROP FUNCTION IF EXISTS add_order_keys() CASCADE;
 
+-- the states an order goes through, in order; PizzaStore.ORDER_STATUSES lists them too
+CREATE TYPE order_status AS ENUM ('placed', 'preparing', 'out for delivery', 'complete');
+
+-- password holds a bcrypt hash (PizzaStore.Passwords); create_db.sh runs users.csv through --hash-passwords before loading it
 CREATE TABLE Users ( login varchar(50) NOT NULL,
-                     password varchar(30) NOT NULL,
+                     password varchar(60) NOT NULL,
                      role char(20) NOT NULL,
                      favoriteItems text,
                      phoneNum varchar(20) NOT NULL,
@@ -29,27 +39,128 @@ CREATE TABLE Store ( storeID integer NOT NULL,
                            PRIMARY KEY(storeID)
 );
 
+-- FoodOrder and ItemsInOrder are partitioned by month of orderTimestamp;
+-- see create_order_partition below. The primary keys of partitioned tables
+-- must hold the partition key, so FoodOrderKey below keeps orderIDs unique.
 CREATE TABLE FoodOrder ( orderID integer NOT NULL,
                            login varchar(50) NOT NULL, --places relationship
                            storeID integer NOT NULL, --placedAt relationship
                            totalPrice decimal(10,2) NOT NULL,
                            orderTimestamp timestamp NOT NULL,
-                           orderStatus char(50),
-                           PRIMARY KEY(orderID),
+                           orderStatus order_status NOT NULL DEFAULT 'placed',
+                           driverLogin varchar(50), --deliveredBy relationship, set when a driver claims the order
+                           PRIMARY KEY(orderID, orderTimestamp),
                            FOREIGN KEY(login) REFERENCES Users(login)
                            ON DELETE CASCADE,
                            FOREIGN KEY(storeID) REFERENCES Store(storeID)
-                           ON DELETE CASCADE
+                           ON DELETE CASCADE,
+                           FOREIGN KEY(driverLogin) REFERENCES Users(login)
+                           ON DELETE SET NULL
+) PARTITION BY RANGE (orderTimestamp);
+
+-- orderIDs are allocated by the application in blocks: every nextval reserves
+-- the next 50 ids, which a terminal hands out without further round trips.
+-- The INCREMENT BY must match PizzaStore.ORDER_ID_BLOCK_SIZE.
+CREATE SEQUENCE FoodOrder_orderID_seq INCREMENT BY 50 OWNED BY FoodOrder.orderID;
+
+-- the orderTimestamp of every order by orderID alone, so an order looked up by
+-- its orderID (PizzaStore.getOrder) is found without probing every FoodOrder
+-- partition; its primary key keeps an orderID from being used twice. Filled
+-- by the trigger below, except during bulk loads (pizzastore.bulk_load, see
+-- create_rollups.sql), which fill it once the orders are loaded. The key of
+-- an order deleted with its user or store goes with it.
+CREATE TABLE FoodOrderKey ( orderID integer NOT NULL,
+                            orderTimestamp timestamp NOT NULL,
+                            PRIMARY KEY(orderID),
+                            FOREIGN KEY(orderID, orderTimestamp) REFERENCES FoodOrder(orderID, orderTimestamp)
+                            ON DELETE CASCADE
 );
 
+-- adds the keys of the orders of an INSERT or COPY with a single statement per statement
+CREATE FUNCTION add_order_keys() RETURNS trigger AS $$
+BEGIN
+   IF current_setting('pizzastore.bulk_load', true) = 'on' THEN
+      RETURN NULL;
+   END IF;
+   INSERT INTO FoodOrderKey (orderID, orderTimestamp) SELECT orderID, orderTimestamp FROM new_orders;
+   RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER FoodOrder_key AFTER INSERT ON FoodOrder
+   REFERENCING NEW TABLE AS new_orders
+   FOR EACH STATEMENT EXECUTE FUNCTION add_order_keys();
 
 
 CREATE TABLE ItemsInOrder ( orderID integer NOT NULL,
+                           orderTimestamp timestamp NOT NULL, --of the order, so the items share its month
                            itemName varchar(50) NOT NULL,
                            quantity integer NOT NULL,
-                           PRIMARY KEY(orderID, itemName),
-                           FOREIGN KEY(orderID) REFERENCES FoodOrder(orderID) ON DELETE CASCADE,
+                           PRIMARY KEY(orderID, orderTimestamp, itemName),
+                           FOREIGN KEY(orderID, orderTimestamp) REFERENCES FoodOrder(orderID, orderTimestamp)
+                           ON DELETE CASCADE,
                            FOREIGN KEY(itemName) REFERENCES Items(itemName)
                            ON DELETE CASCADE
-);
+) PARTITION BY RANGE (orderTimestamp);
+
+-- Creates the FoodOrder and ItemsInOrder partitions of the month of ts, named
+-- foodorder_YYYY_MM and itemsinorder_YYYY_MM, unless they exist. An order
+-- whose month has no partition cannot be inserted.
+CREATE FUNCTION create_order_partition(ts timestamp) RETURNS void AS $$
+DECLARE
+   first timestamp := date_trunc('month', ts);
+   suffix text := to_char(first, 'YYYY_MM');
+BEGIN
+   EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF FoodOrder FOR VALUES FROM (%L) TO (%L)',
+                  'foodorder_' || suffix, first, first + interval '1 month');
+   EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF ItemsInOrder FOR VALUES FROM (%L) TO (%L)',
+                  'itemsinorder_' || suffix, first, first + interval '1 month');
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates the partitions of this month and of the months_ahead months after
+-- it. When keep_months is not null, also drops the partitions of the months
+-- before the last keep_months, items first, and returns how many months were
+-- dropped; a month that still has an order that is not complete is kept.
+-- The sales rollups of create_rollups.sql keep counting the dropped orders.
+CREATE FUNCTION maintain_order_partitions(months_ahead integer, keep_months integer) RETURNS integer AS $$
+DECLARE
+   cutoff timestamp := date_trunc('month', now()) - make_interval(months => keep_months);
+   part text;
+   open_orders boolean;
+   dropped integer := 0;
+BEGIN
+   FOR month IN 0 .. months_ahead LOOP
+      PERFORM create_order_partition((now() + make_interval(months => month))::timestamp);
+   END LOOP;
+   IF keep_months IS NULL THEN
+      RETURN 0;
+   END IF;
+
+   FOR part IN
+      SELECT C.relname FROM pg_inherits P JOIN pg_class C ON C.oid = P.inhrelid
+      WHERE P.inhparent = 'FoodOrder'::regclass AND C.relname ~ '^foodorder_[0-9]{4}_[0-9]{2}$'
+        AND to_timestamp(right(C.relname, 7), 'YYYY_MM')::timestamp < cutoff
+      ORDER BY C.relname
+   LOOP
+      EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE orderStatus <> ''complete'')', part) INTO open_orders;
+      IF open_orders THEN
+         RAISE NOTICE 'keeping %, it has open orders', part;
+         CONTINUE;
+      END IF;
+      EXECUTE format('DROP TABLE IF EXISTS %I', 'itemsinorder_' || right(part, 7));
+      -- the foreign keys from ItemsInOrder and FoodOrderKey keep an attached partition from being dropped
+      EXECUTE format('DELETE FROM FoodOrderKey WHERE orderID IN (SELECT orderID FROM %I)', part);
+      EXECUTE format('ALTER TABLE FoodOrder DETACH PARTITION %I', part);
+      EXECUTE format('DROP TABLE %I', part);
+      dropped := dropped + 1;
+   END LOOP;
+   RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+-- the partitions of the coming months; the server mode keeps creating them
+-- ahead (PizzaStore.PARTITION_MONTHS_AHEAD) and bulk loads create the months
+-- of the loaded orders
+SELECT maintain_order_partitions(3, NULL);
 